@@ -220,6 +220,13 @@ function BookingSummaryContent() {
         },
         body: JSON.stringify({
           amount: calculateTotalPrice() ,
+          movieId,
+          theaterId,
+          showtime,
+          category,
+          seats,
+          date,
+          foodItems: selectedFood,
           receipt: `booking_${Date.now()}`,
           notes: {
             userId: sessionData.user.email,
@@ -234,9 +241,32 @@ function BookingSummaryContent() {
         })
       });
 
+      if (orderResponse.status === 409) {
+        setInitialLoading(false);
+        const conflict = await orderResponse.json().catch(() => ({}));
+        if (conflict.code === 'CONCESSIONS_UNAVAILABLE') {
+          throw new Error("Some of your food items just sold out for this show. Please change your food selection.");
+        }
+        if (conflict.code === 'SHOWTIME_CANCELLED') {
+          throw new Error("This show has been cancelled. Please pick another showtime.");
+        }
+        throw new Error("Some of your seats were just taken by another booking. Please pick different seats.");
+      }
       if (!orderResponse.ok) throw new Error("Failed to create payment order");
       const orderData = await orderResponse.json();
 
+      // Release the seat hold if the customer walks away from the checkout
+      const releaseSeatHold = () => {
+        fetch('https://movie-ticket-booking-583u.onrender.com/api/payments/cancel-order', {
+          method: 'POST',
+          credentials: 'include',
+          headers: {
+            'Content-Type': 'application/json',
+          },
+          body: JSON.stringify({ orderId: orderData.id })
+        }).catch((err) => console.error("Failed to release seat hold:", err));
+      };
+
       setInitialLoading(false);
 
       // 4. Load Razorpay script dynamically
@@ -306,6 +336,11 @@ function BookingSummaryContent() {
               await new Promise(resolve => setTimeout(resolve, 1500));
 
               window.location.href = `/booking-success?bookingId=${verificationData.bookingId}`;
+            } else if (verificationData.refundStatus === 'REFUND_PENDING') {
+              // Paid, but the order could no longer be booked; the payment is being refunded
+              setLoading(false);
+              setError((verificationData.error || 'Your booking could not be completed.')
+                + ' Your payment will be refunded to the original payment method.');
             } else {
               setLoading(false);
               setError('Payment verification failed. Please contact support.');
@@ -326,6 +361,7 @@ function BookingSummaryContent() {
         },
         modal: {
           ondismiss: function() {
+            releaseSeatHold();
             setError('Payment was cancelled. Please try again.');
           }
         }
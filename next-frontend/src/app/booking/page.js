@@ -39,6 +39,7 @@ function BookingPageContent() {
             const seatsResponse = await fetch(
               `https://movie-ticket-booking-583u.onrender.com/booking/booked-seats?movieId=${movieId}&theaterId=${theaterId}&showtime=${showtime}&date=${date}`
             );
+            if (seatsResponse.status === 409) throw new Error("This show has been cancelled.");
             if (!seatsResponse.ok) throw new Error("Failed to fetch booked seats.");
             const seatsData = await seatsResponse.json();
             setBookedSeats(seatsData.bookedSeats || []);
@@ -12,6 +12,8 @@ export default function MyOrders() {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [user, setUser] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   const parseTimeString = (timeString, dateString) => {
     const [time, period] = timeString.split(' ');
@@ -82,6 +84,51 @@ export default function MyOrders() {
     };
   };
 
+  const fetchBookingsPage = (userId, cursor) => axios.get(
+    `https://movie-ticket-booking-583u.onrender.com/booking/user/${userId}`,
+    { withCredentials: true, params: cursor ? { cursor } : {} }
+  );
+
+  const processBookings = (rawBookings) => rawBookings.map(booking => {
+    if (!booking.date || !booking.showtime) {
+      console.warn('Invalid booking data:', booking);
+      return null;
+    }
+
+    const showDateTime = parseTimeString(booking.showtime, booking.date);
+    const now = new Date();
+    const isExpired = showDateTime < now;
+    const timeStatus = calculateTimeLeft(showDateTime);
+    const isCancelled = booking.status === 'CANCELLED';
+
+    return {
+      ...booking,
+      isExpired,
+      isCancelled,
+      showDateTime,
+      timeStatus
+    };
+  }).filter(booking => booking !== null);
+
+  const handleLoadMore = async () => {
+    if (!user || !nextCursor || loadingMore) return;
+    setLoadingMore(true);
+    try {
+      const response = await fetchBookingsPage(user.id, nextCursor);
+      if (response.data.status === 'success') {
+        setBookings(prevBookings => prevBookings.concat(processBookings(response.data.data)));
+        setNextCursor(response.data.nextCursor || null);
+      } else {
+        alert(response.data.message || 'Failed to load more bookings');
+      }
+    } catch (err) {
+      console.error('Error:', err);
+      alert(err.response?.data?.message || 'Failed to load more bookings');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   useEffect(() => {
     const fetchUserAndBookings = async () => {
       try {
@@ -98,34 +145,12 @@ export default function MyOrders() {
         const userData = sessionResponse.data.user;
         setUser(userData);
 
-        const bookingsResponse = await axios.get(
-          `https://movie-ticket-booking-583u.onrender.com/booking/user/${userData.id}`,
-          { withCredentials: true }
-        );
+        // The history is served a page at a time; later pages are fetched with "Load more"
+        const bookingsResponse = await fetchBookingsPage(userData.id, null);
 
         if (bookingsResponse.data.status === 'success') {
-          const processedBookings = bookingsResponse.data.data.map(booking => {
-            if (!booking.date || !booking.showtime) {
-              console.warn('Invalid booking data:', booking);
-              return null;
-            }
-
-            const showDateTime = parseTimeString(booking.showtime, booking.date);
-            const now = new Date();
-            const isExpired = showDateTime < now;
-            const timeStatus = calculateTimeLeft(showDateTime);
-            const isCancelled = booking.status === 'CANCELLED';
-
-            return {
-              ...booking,
-              isExpired,
-              isCancelled,
-              showDateTime,
-              timeStatus
-            };
-          }).filter(booking => booking !== null);
-
-          setBookings(processedBookings);
+          setBookings(processBookings(bookingsResponse.data.data));
+          setNextCursor(bookingsResponse.data.nextCursor || null);
         } else {
           setError(bookingsResponse.data.message || 'Failed to fetch bookings');
         }
@@ -258,7 +283,7 @@ export default function MyOrders() {
           </h1>
           <p className="text-gray-400">
             {bookings.length > 0
-              ? `You have ${bookings.length} ${bookings.length === 1 ? 'booking' : 'bookings'}`
+              ? `You have ${bookings.length}${nextCursor ? '+' : ''} ${bookings.length === 1 && !nextCursor ? 'booking' : 'bookings'}`
               : "You haven't made any bookings yet"}
           </p>
         </div>
@@ -527,6 +552,17 @@ export default function MyOrders() {
                 </div>
               );
             })}
+            {nextCursor && (
+              <div className="flex justify-center pt-2">
+                <button
+                  onClick={handleLoadMore}
+                  disabled={loadingMore}
+                  className="px-6 py-3 bg-gray-800 hover:bg-gray-700 text-white rounded-lg transition-all duration-300 disabled:opacity-50 disabled:cursor-not-allowed"
+                >
+                  {loadingMore ? 'Loading...' : 'Load more bookings'}
+                </button>
+              </div>
+            )}
           </div>
         )}
       </main>
@@ -52,9 +52,9 @@ function ShowtimesContent() {
     }
   };
 
-  // Filter out only ended showtimes
+  // Filter out ended and cancelled showtimes
   const validShowtimes = showtimes.filter(show =>
-    getShowtimeStatus(show.time, selectedDate) !== 'ended'
+    getShowtimeStatus(show.time, selectedDate) !== 'ended' && !show.cancelled
   );
 
   // --- Start: Apply useCallback to fetch functions ---
@@ -120,7 +120,8 @@ function ShowtimesContent() {
           time: show.time || "N/A",
           seatCategories: show.seatCategories || [],
           totalSeats: show.totalSeats || 0,
-          availableSeats: show.availableSeats || 0
+          availableSeats: show.availableSeats || 0,
+          cancelled: show.cancelled || false
         }));
         setShowtimes(formattedShowtimes);
       } else {
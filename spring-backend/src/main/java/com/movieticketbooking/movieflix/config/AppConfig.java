@@ -1,13 +1,86 @@
 package com.movieticketbooking.movieflix.config;
 
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.ClientRequestObservationConvention;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
 @Configuration
 public class AppConfig {
+
+    // Path segments that identify a resource (TMDB ids, Place ids) rather than an endpoint
+    private static final Pattern ID_SEGMENT = Pattern.compile("/(?:\\d+|[A-Za-z0-9_-]{20,})(?=/|$)");
+
+    /**
+     * The one outbound HTTP client shared by every external integration.
+     *
+     * Built on the JDK HttpClient, which keeps a keep-alive connection pool per
+     * host and negotiates HTTP/2 where the server offers it. Requests get
+     * connect and read timeouts and the {@link RetryBudgetInterceptor}. Built
+     * from Boot's builder, so responses are read with the shared ObjectMapper
+     * and every call is timed in http.client.requests, tagged by client.name
+     * (the host) for per-dependency latency.
+     */
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${http.client.connect-timeout:PT2S}") Duration connectTimeout,
+                                     @Value("${http.client.read-timeout:PT5S}") Duration readTimeout,
+                                     @Value("${http.client.retry.max-attempts:3}") int maxAttempts,
+                                     @Value("${http.client.retry.backoff:PT0.1S}") Duration backoff,
+                                     @Value("${http.client.retry.budget-ratio:0.1}") double budgetRatio,
+                                     @Value("${http.client.retry.max-tokens:10}") double maxTokens) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+
+        return builder
+                .requestFactory(() -> requestFactory)
+                .additionalInterceptors(new RetryBudgetInterceptor(maxAttempts, backoff, budgetRatio, maxTokens, meterRegistry))
+                .build();
+    }
+
+    // Keeps API keys in query strings and per-resource ids out of the request metrics' tags
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ClientRequestObservationConvention clientRequestObservationConvention() {
+        return new DefaultClientRequestObservationConvention() {
+            @Override
+            protected KeyValue uri(ClientRequestObservationContext context) {
+                KeyValue uri = super.uri(context);
+                String path = uri.getValue();
+                int query = path.indexOf('?');
+                if (query >= 0) {
+                    path = path.substring(0, query);
+                }
+                return KeyValue.of(uri.getKey(), ID_SEGMENT.matcher(path).replaceAll("/{id}"));
+            }
+
+            @Override
+            protected KeyValue requestUri(ClientRequestObservationContext context) {
+                KeyValue requestUri = super.requestUri(context);
+                URI carrier = context.getCarrier() != null ? context.getCarrier().getURI() : null;
+                if (carrier == null || carrier.getRawQuery() == null) {
+                    return requestUri;
+                }
+                String url = carrier.toString();
+                return KeyValue.of(requestUri.getKey(), url.substring(0, url.indexOf('?')));
+            }
+        };
     }
 }
@@ -0,0 +1,67 @@
+package com.movieticketbooking.movieflix.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+@Configuration
+public class PersistenceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceConfig.class);
+
+    // Tables whose IDs moved from IDENTITY to pooled sequences, with their sequence
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "bookings", "bookings_seq",
+            "payments", "payments_seq",
+            "booked_seats", "booked_seats_seq",
+            "food_orders", "food_orders_seq"
+    );
+
+    // Must match allocationSize on the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateTuningCustomizer() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, 50);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            // With open-in-view the session lives for the whole request; hand the
+            // connection back to the pool as soon as each transaction ends instead
+            properties.putIfAbsent(AvailableSettings.CONNECTION_HANDLING,
+                    PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+        };
+    }
+
+    /**
+     * Moves each sequence past the highest ID already in its table. Rows inserted
+     * while the tables used IDENTITY columns would otherwise collide with the
+     * first IDs handed out by the sequence. Safe to run on every start: a
+     * sequence is never moved backwards.
+     */
+    @Bean
+    public SmartInitializingSingleton sequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        // The EntityManagerFactory dependency makes sure Hibernate has created the sequences first
+        return () -> SEQUENCES.forEach((table, sequence) -> {
+            try {
+                Long value = jdbcTemplate.queryForObject(
+                        "SELECT setval('" + sequence + "', GREATEST(" +
+                                "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + ALLOCATION_SIZE + ", " +
+                                "(SELECT last_value FROM " + sequence + ")))",
+                        Long.class);
+                logger.debug("Sequence {} aligned at {}", sequence, value);
+            } catch (Exception e) {
+                logger.warn("Could not align sequence {} with table {}: {}", sequence, table, e.getMessage());
+            }
+        });
+    }
+}
@@ -2,21 +2,63 @@ package com.movieticketbooking.movieflix.config;
 
 import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class RazorpayConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(RazorpayConfig.class);
+
     @Value("${razorpay.api.key.id}")
     private String razorpayKeyId;
 
     @Value("${razorpay.api.key.secret}")
     private String razorpayKeySecret;
 
+    @Value("${razorpay.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${razorpay.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Value("${razorpay.http.max-idle-connections:20}")
+    private int maxIdleConnections;
+
     @Bean
     public RazorpayClient razorpayClient() throws RazorpayException {
-        return new RazorpayClient(razorpayKeyId, razorpayKeySecret);
+        RazorpayClient client = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
+        tuneHttpClient();
+        return client;
+    }
+
+    // The SDK keeps one static OkHttp client with 60s read/write timeouts and no way to
+    // configure it. Swap in a copy with our timeouts and pool size; the copy keeps the
+    // SDK's TLS setup and interceptors.
+    private void tuneHttpClient() {
+        try {
+            Field field = Class.forName("com.razorpay.ApiUtils").getDeclaredField("client");
+            field.setAccessible(true);
+            OkHttpClient current = (OkHttpClient) field.get(null);
+            if (current == null) {
+                return;
+            }
+            field.set(null, current.newBuilder()
+                    .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                    .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                    .writeTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                    .connectionPool(new ConnectionPool(maxIdleConnections, 5, TimeUnit.MINUTES))
+                    .build());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Could not apply Razorpay HTTP timeouts, using SDK defaults: {}", e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+package com.movieticketbooking.movieflix.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries idempotent outbound requests that failed transiently, within a
+ * per-host retry budget.
+ *
+ * Every request to a host earns a fraction of a retry token and every retry
+ * spends a whole one, so retries can never add more than that fraction of
+ * extra load on a dependency that is already struggling. When a host's budget
+ * is spent the failure is returned to the caller straight away.
+ *
+ * Connection failures and 429/502/503/504 responses are retried after a short
+ * jittered backoff. Read timeouts are not: the server is already slow and
+ * callers hold deadlines of their own. Only GET, HEAD and OPTIONS are retried.
+ *
+ * Must be the last interceptor, since a retry re-runs only what comes after it.
+ */
+class RetryBudgetInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Set<HttpMethod> IDEMPOTENT = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(429, 502, 503, 504);
+
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final double tokensPerRequest;
+    private final double maxTokens;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    RetryBudgetInterceptor(int maxAttempts, Duration backoff, double budgetRatio, double maxTokens,
+                           MeterRegistry meterRegistry) {
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.tokensPerRequest = budgetRatio;
+        this.maxTokens = maxTokens;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String host = request.getURI().getHost();
+        Budget budget = budgets.computeIfAbsent(host, h -> new Budget(maxTokens));
+        budget.deposit(tokensPerRequest);
+        boolean retryable = IDEMPOTENT.contains(request.getMethod());
+
+        for (int attempt = 1; ; attempt++) {
+            boolean lastAttempt = !retryable || attempt >= maxAttempts;
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                if (lastAttempt || !isTransient(e) || !spend(budget, host)) {
+                    throw e;
+                }
+                pause(attempt);
+                continue;
+            }
+            if (lastAttempt || !RETRYABLE_STATUS.contains(response.getStatusCode().value()) || !spend(budget, host)) {
+                return response;
+            }
+            response.close();
+            pause(attempt);
+        }
+    }
+
+    private static boolean isTransient(IOException e) {
+        return !(e instanceof HttpTimeoutException) || e instanceof HttpConnectTimeoutException;
+    }
+
+    private boolean spend(Budget budget, String host) {
+        boolean allowed = budget.withdraw();
+        counter(host, allowed ? "retried" : "budget_exhausted").increment();
+        return allowed;
+    }
+
+    private Counter counter(String host, String outcome) {
+        return Counter.builder("http.client.retries")
+                .description("Outbound request retries, and retries refused because the host's budget was spent")
+                .tag("client.name", host)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void pause(int attempt) throws IOException {
+        long base = backoff.toMillis() << (attempt - 1);
+        try {
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while backing off a retry", e);
+        }
+    }
+
+    private static final class Budget {
+
+        private final double capacity;
+        private double tokens;
+
+        Budget(double capacity) {
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        synchronized void deposit(double amount) {
+            tokens = Math.min(capacity, tokens + amount);
+        }
+
+        synchronized boolean withdraw() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
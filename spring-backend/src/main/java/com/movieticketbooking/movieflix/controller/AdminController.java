@@ -11,6 +11,10 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import com.movieticketbooking.movieflix.service.AdminService;
+import com.movieticketbooking.movieflix.service.BookingViewService;
+import com.movieticketbooking.movieflix.service.BulkCancellationService;
+import com.movieticketbooking.movieflix.service.CancellationJob;
+import com.movieticketbooking.movieflix.service.ConcessionStockService;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.DateTimeException;
@@ -31,6 +35,15 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private BulkCancellationService bulkCancellationService;
+
+    @Autowired
+    private ConcessionStockService concessionStockService;
+
+    @Autowired
+    private BookingViewService bookingViewService;
+
     @PostMapping("/register")
     public ResponseEntity<?> registerAdmin(@RequestBody Admin admin) {
         Admin savedAdmin = adminService.registerAdmin(admin);
@@ -110,5 +123,66 @@ public class AdminController {
         }
     }
 
+    // Cancels every booking of a showtime; returns a job id to poll for progress
+    @PostMapping("/showtimes/{showtimeId}/cancel-bookings")
+    public ResponseEntity<?> cancelShowtimeBookings(@PathVariable Long showtimeId) {
+        return bulkCancellationService.cancelShowtime(showtimeId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toMap()))
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                        "status", "error",
+                        "code", "SHOWTIME_NOT_FOUND",
+                        "message", "Showtime not found"
+                )));
+    }
+
+    @PostMapping("/theatres/{theatreId}/cancel-bookings")
+    public ResponseEntity<?> cancelTheatreDayBookings(
+            @PathVariable String theatreId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        CancellationJob job = bulkCancellationService.cancelTheatreDay(theatreId, date);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toMap());
+    }
+
+    @GetMapping("/cancellation-jobs/{jobId}")
+    public ResponseEntity<?> getCancellationJob(@PathVariable String jobId) {
+        return bulkCancellationService.getJob(jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.toMap()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Snack bar stock of one show slot: total capacity by food item id
+    @PutMapping("/theatres/{theatreId}/concessions")
+    public ResponseEntity<Map<Long, Integer>> setConcessionStock(
+            @PathVariable String theatreId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam String time,
+            @RequestBody Map<Long, Integer> capacities) {
+        if (capacities.values().stream().anyMatch(capacity -> capacity == null || capacity < 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(concessionStockService.setCapacity(
+                new ConcessionStockService.Slot(theatreId, date, time), capacities));
+    }
+
+    @GetMapping("/theatres/{theatreId}/concessions")
+    public ResponseEntity<Map<Long, Integer>> getConcessionStock(
+            @PathVariable String theatreId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam String time) {
+        return ResponseEntity.ok(concessionStockService.getAvailable(
+                new ConcessionStockService.Slot(theatreId, date, time)));
+    }
 
+    // Regenerates the booking read model from the booking tables in the background
+    @PostMapping("/booking-views/rebuild")
+    public ResponseEntity<?> rebuildBookingViews(@RequestParam(defaultValue = "false") boolean missingOnly) {
+        if (!bookingViewService.rebuild(missingOnly)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "status", "error",
+                    "code", "REBUILD_RUNNING",
+                    "message", "A booking view rebuild is already running"
+            ));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("status", "started"));
+    }
 }
@@ -1,13 +1,24 @@
 package com.movieticketbooking.movieflix.controller;
 
+import com.movieticketbooking.movieflix.dto.BookingViewDocument;
+import com.movieticketbooking.movieflix.dto.Place;
+import com.movieticketbooking.movieflix.dto.ShowtimeKey;
 import com.movieticketbooking.movieflix.models.*;
 import com.movieticketbooking.movieflix.repository.*;
+import com.movieticketbooking.movieflix.service.BookingHistoryService;
+import com.movieticketbooking.movieflix.service.BookingViewService;
+import com.movieticketbooking.movieflix.service.ConcessionStockService;
+import com.movieticketbooking.movieflix.service.MovieCatalogService;
+import com.movieticketbooking.movieflix.service.OutboxService;
+import com.movieticketbooking.movieflix.service.SeatHoldService;
+import com.movieticketbooking.movieflix.service.SeatInventoryService;
+import com.movieticketbooking.movieflix.service.ShowtimeAvailabilityService;
+import com.movieticketbooking.movieflix.service.TheatreRegistry;
 import com.movieticketbooking.movieflix.service.TicketService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,7 +29,6 @@ import java.util.Locale;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 import java.util.stream.Collectors;
 import java.time.format.DateTimeParseException;
 
@@ -28,52 +38,64 @@ import java.time.format.DateTimeParseException;
 @RequestMapping("/booking")
 public class BookingController {
 
-    @Value("${tmdb.api.key}")
-    private String tmdbApiKey;
-
-    @Value("${google.api.key}")
-    private String googleApiKey;
-
     private static final Logger logger = LoggerFactory.getLogger(BookingController.class);
 
     @Autowired
     private TicketService ticketService;
 
-    private final RestTemplate restTemplate;
+    private final TheatreRegistry theatreRegistry;
     private final BookingRepository bookingRepository;
     private final ShowtimeRepository showtimeRepository;
     private final PaymentRepository paymentRepository;
     private final BookedSeatRepository bookedSeatRepository;
-    private final FoodOrderRepository foodOrderRepository;
-    private final FoodItemRepository foodItemRepository;
-
-    public BookingController(RestTemplate restTemplate,
+    private final SeatInventoryService seatInventoryService;
+    private final SeatHoldService seatHoldService;
+    private final ConcessionStockService concessionStockService;
+    private final ShowtimeAvailabilityService showtimeAvailabilityService;
+    private final MovieCatalogService movieCatalogService;
+    private final BookingHistoryService bookingHistoryService;
+    private final BookingViewService bookingViewService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+
+    public BookingController(TheatreRegistry theatreRegistry,
                              BookingRepository bookingRepository,
                              ShowtimeRepository showtimeRepository,
                              PaymentRepository paymentRepository,
                              BookedSeatRepository bookedSeatRepository,
-                             FoodOrderRepository foodOrderRepository,
-                             FoodItemRepository foodItemRepository) {
-        this.restTemplate = restTemplate;
+                             SeatInventoryService seatInventoryService,
+                             SeatHoldService seatHoldService,
+                             ConcessionStockService concessionStockService,
+                             ShowtimeAvailabilityService showtimeAvailabilityService,
+                             MovieCatalogService movieCatalogService,
+                             BookingHistoryService bookingHistoryService,
+                             BookingViewService bookingViewService,
+                             OutboxService outboxService,
+                             TransactionTemplate transactionTemplate) {
+        this.theatreRegistry = theatreRegistry;
         this.bookingRepository = bookingRepository;
         this.showtimeRepository = showtimeRepository;
         this.paymentRepository = paymentRepository;
         this.bookedSeatRepository = bookedSeatRepository;
-        this.foodOrderRepository = foodOrderRepository;
-        this.foodItemRepository = foodItemRepository;
+        this.seatInventoryService = seatInventoryService;
+        this.seatHoldService = seatHoldService;
+        this.concessionStockService = concessionStockService;
+        this.showtimeAvailabilityService = showtimeAvailabilityService;
+        this.movieCatalogService = movieCatalogService;
+        this.bookingHistoryService = bookingHistoryService;
+        this.bookingViewService = bookingViewService;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @GetMapping("/{bookingRef}")
     public ResponseEntity<?> getBookingDetails(@PathVariable String bookingRef) {
         try {
-            // Try to find by Razorpay order ID first
-            Optional<Booking> bookingOpt = bookingRepository.findByBookingReference(bookingRef);
-
-            if (bookingOpt.isEmpty()) {
-                // Fallback to database ID
+            // Try to find by Razorpay order ID first, then fall back to the database ID
+            Optional<BookingViewDocument> view = bookingViewService.find(bookingRef);
+            if (view.isEmpty()) {
                 try {
-                    Long id = Long.parseLong(bookingRef);
-                    bookingOpt = bookingRepository.findById(id);
+                    view = bookingViewService.findByBookingId(Long.parseLong(bookingRef));
                 } catch (NumberFormatException e) {
                     return ResponseEntity.status(404).body(
                             Map.of("status", "error", "message", "Booking not found")
@@ -81,36 +103,24 @@ public class BookingController {
                 }
             }
 
-            if (bookingOpt.isEmpty()) {
+            if (view.isEmpty()) {
                 return ResponseEntity.status(404).body(
                         Map.of("status", "error", "message", "Booking not found")
                 );
             }
 
-            Booking booking = bookingOpt.get();
-            Showtime showtime = showtimeRepository.findById(booking.getShowtime().getId())
-                    .orElseThrow(() -> new RuntimeException("Showtime not found"));
-            Payment payment = paymentRepository.findByBookingId(booking.getId());
-            List<BookedSeat> seats = bookedSeatRepository.findByBookingId(booking.getId());
-            List<FoodOrder> foodOrders = foodOrderRepository.findByBookingId(booking.getId());
-
-            // Fetch additional details
-            Map<String, Object> movieDetails = fetchMovieDetails(showtime.getMovieId().toString());
-            Map<String, Object> theaterDetails = fetchTheaterDetails(showtime.getTheatreId());
-
-            if (movieDetails == null || theaterDetails == null) {
-                return ResponseEntity.status(500).body(
-                        Map.of("status", "error", "message", "Failed to fetch movie or theater details")
-                );
-            }
-
             // Build response
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("status", "success");
-            response.put("data", buildBookingResponse(booking, showtime, payment, seats, foodOrders, movieDetails, theaterDetails));
+            response.put("data", buildBookingResponse(view.get()));
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalStateException e) {
+            // The view could not be built yet: movie or theatre details are unavailable
+            return ResponseEntity.status(500).body(
+                    Map.of("status", "error", "message", "Failed to fetch movie or theater details")
+            );
         } catch (Exception e) {
             return ResponseEntity.status(500).body(
                     Map.of("status", "error", "message", "Internal server error: " + e.getMessage())
@@ -118,67 +128,24 @@ public class BookingController {
         }
     }
 
+    // Newest first, a page at a time; pass nextCursor back as cursor for the following page
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getUserBookings(@PathVariable Long userId) {
+    public ResponseEntity<?> getUserBookings(@PathVariable Long userId,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit) {
         try {
-            List<Booking> bookings = bookingRepository.findByUserId(userId);
-            List<Map<String, Object>> bookingResponses = new ArrayList<>();
-
-            // Create a formatter for AM/PM time format
-            DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("h:mm a", Locale.US);
-
-            for (Booking booking : bookings) {
-                Showtime showtime = showtimeRepository.findById(booking.getShowtime().getId())
-                        .orElse(null);
-
-                if (showtime != null) {
-                    Map<String, Object> movieDetails = fetchMovieDetails(showtime.getMovieId().toString());
-
-                    if (movieDetails != null) {
-                        // Format the date properly
-                        String formattedDate = showtime.getDate().toString();
-
-                        // Parse the time using the formatter
-                        LocalTime showTime = LocalTime.parse(showtime.getTime(), timeFormatter);
-                        LocalDateTime showDateTime = showtime.getDate().atTime(showTime);
-                        LocalDateTime now = LocalDateTime.now();
-
-                        boolean isExpired = showDateTime.isBefore(now);
-                        long hoursRemaining = ChronoUnit.HOURS.between(now, showDateTime);
-                        long minutesRemaining = ChronoUnit.MINUTES.between(now, showDateTime) % 60;
-
-                        String timeStatus = isExpired ? "Expired" :
-                                (hoursRemaining > 0 ? hoursRemaining + "h " + minutesRemaining + "m remaining" :
-                                        minutesRemaining + "m remaining");
-
-                        // Create booking map using HashMap
-                        Map<String, Object> bookingMap = new HashMap<>();
-                        bookingMap.put("id", booking.getId());
-                        bookingMap.put("reference", booking.getBookingReference());
-                        bookingMap.put("movieTitle", movieDetails.get("title"));
-                        bookingMap.put("posterPath", buildPosterPath(movieDetails.get("poster_path")));
-                        bookingMap.put("showtime", showtime.getTime()); // Keep original format
-                        bookingMap.put("date", formattedDate);
-                        bookingMap.put("totalAmount", booking.getTotalAmount());
-                        bookingMap.put("status", booking.getPaymentStatus());
-                        bookingMap.put("rating", movieDetails.getOrDefault("vote_average", "N/A"));
-                        bookingMap.put("genres", extractGenres(movieDetails));
-                        bookingMap.put("isExpired", isExpired);
-                        bookingMap.put("timeStatus", timeStatus);
-                        bookingMap.put("showDateTime", showDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
-
-                        bookingResponses.add(bookingMap);
-                    }
-                }
-            }
+            BookingHistoryService.Page page = bookingHistoryService.getPage(userId, cursor, limit);
 
             // Create response map
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
-            response.put("data", bookingResponses);
+            response.put("data", page.bookings());
+            response.put("nextCursor", page.nextCursor());
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", e.getMessage()));
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("status", "error");
@@ -187,46 +154,39 @@ public class BookingController {
         }
     }
 
-    private Map<String, Object> buildBookingResponse(Booking booking,
-                                                     Showtime showtime,
-                                                     Payment payment,
-                                                     List<BookedSeat> seats,
-                                                     List<FoodOrder> foodOrders,
-                                                     Map<String, Object> movieDetails,
-                                                     Map<String, Object> theaterDetails) {
+    private Map<String, Object> buildBookingResponse(BookingViewDocument view) {
         Map<String, Object> response = new LinkedHashMap<>();
 
         // Booking details
         response.put("booking", Map.of(
-                "id", booking.getId(),
-                "reference", booking.getBookingReference(),
-                "date", showtime.getDate().toString(),
-                "time", showtime.getTime(),
-                "totalAmount", booking.getTotalAmount(),
-                "seats", seats.stream().map(BookedSeat::getSeatNumber).collect(Collectors.toList()),
-                "paymentStatus", booking.getPaymentStatus(),
-                "paymentMethod", payment != null ? payment.getMethod().toString() : "UNKNOWN",
-                "bookingTime", booking.getBookingTime().toString()
+                "id", view.bookingId(),
+                "reference", view.reference(),
+                "date", view.showDate().toString(),
+                "time", view.showTime(),
+                "totalAmount", view.totalAmount(),
+                "seats", view.seats().stream().map(BookingViewDocument.Seat::number).collect(Collectors.toList()),
+                "paymentStatus", view.paymentStatus(),
+                "paymentMethod", view.paymentMethod(),
+                "bookingTime", view.bookingTime().toString()
         ));
 
         // Food items
-        if (!foodOrders.isEmpty()) {
-            response.put("foodItems", foodOrders.stream()
-                    .map(fo -> {
-                        FoodItem foodItem = foodItemRepository.findById(fo.getFoodItem().getId())
-                                .orElse(new FoodItem());
-                        return Map.of(
-                                "name", foodItem.getName(),
-                                "quantity", fo.getQuantity(),
-                                "price", fo.getPriceAtOrder(),
-                                "imageUrl", foodItem.getImageUrl()
-                        );
+        if (!view.foodItems().isEmpty()) {
+            response.put("foodItems", view.foodItems().stream()
+                    .map(food -> {
+                        Map<String, Object> item = new HashMap<>();
+                        item.put("name", food.name());
+                        item.put("quantity", food.quantity());
+                        item.put("price", food.price());
+                        item.put("imageUrl", food.imageUrl());
+                        return item;
                     })
                     .collect(Collectors.toList())
             );
         }
 
         // Movie details
+        Map<String, Object> movieDetails = view.movie();
         response.put("movie", Map.of(
                 "title", movieDetails.get("title"),
                 "posterPath", buildPosterPath(movieDetails.get("poster_path")),
@@ -236,11 +196,7 @@ public class BookingController {
         ));
 
         // Theater details
-        response.put("theater", Map.of(
-                "name", extractTheaterName(theaterDetails),
-                "address", theaterDetails.getOrDefault("formattedAddress", "Unknown Location"),
-                "rating", theaterDetails.getOrDefault("rating", "N/A")
-        ));
+        response.put("theater", theaterSummary(view.theatre()));
 
         return response;
     }
@@ -252,7 +208,7 @@ public class BookingController {
             @RequestParam String theaterId) {
 
         Map<String, Object> movieDetails = fetchMovieDetails(movieId);
-        Map<String, Object> theaterDetails = fetchTheaterDetails(theaterId);
+        Place theaterDetails = fetchTheaterDetails(theaterId);
 
         if (movieDetails == null || theaterDetails == null) {
             return ResponseEntity.notFound().build();
@@ -261,33 +217,19 @@ public class BookingController {
         return ResponseEntity.ok(buildBookingResponse(movieDetails, theaterDetails));
     }
 
+    // Served from the local catalog; TMDB is only asked about movies it has never seen
     private Map<String, Object> fetchMovieDetails(String movieId) {
-        String movieUrl = String.format(
-                "https://api.themoviedb.org/3/movie/%s?api_key=%s&language=en-US",
-                movieId, tmdbApiKey
-        );
-        return restTemplate.getForObject(movieUrl, Map.class);
+        return movieCatalogService.getDetails(movieId);
     }
 
-    private Map<String, Object> fetchTheaterDetails(String theaterId) {
-        String theaterUrl = String.format(
-                "https://places.googleapis.com/v1/places/%s?key=%s",
-                theaterId, googleApiKey
-        );
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Goog-FieldMask", "displayName,formattedAddress,rating");
-        return restTemplate.exchange(
-                theaterUrl,
-                HttpMethod.GET,
-                new HttpEntity<>(headers),
-                Map.class
-        ).getBody();
+    // Served from the theatre registry; Places is only asked about theatres it has never seen
+    private Place fetchTheaterDetails(String theaterId) {
+        return theatreRegistry.get(theaterId);
     }
 
     private Map<String, Object> buildBookingResponse(
             Map<String, Object> movieDetails,
-            Map<String, Object> theaterDetails) {
+            Place theaterDetails) {
 
         Map<String, Object> response = new HashMap<>();
 
@@ -300,11 +242,7 @@ public class BookingController {
                 "synopsis", movieDetails.get("overview")
         ));
 
-        response.put("theater", Map.of(
-                "name", extractTheaterName(theaterDetails),
-                "address", theaterDetails.getOrDefault("formattedAddress", "Unknown Location"),
-                "rating", theaterDetails.getOrDefault("rating", "N/A")
-        ));
+        response.put("theater", theaterSummary(theaterDetails));
 
         return response;
     }
@@ -320,11 +258,12 @@ public class BookingController {
                 .collect(Collectors.toList());
     }
 
-    private String extractTheaterName(Map<String, Object> theaterDetails) {
-        if (theaterDetails.get("displayName") == null) {
-            return "Unknown Theatre";
-        }
-        return ((Map<String, Object>) theaterDetails.get("displayName")).get("text").toString();
+    private Map<String, Object> theaterSummary(Place theaterDetails) {
+        return Map.of(
+                "name", theaterDetails.name() != null ? theaterDetails.name() : "Unknown Theatre",
+                "address", theaterDetails.formattedAddress() != null ? theaterDetails.formattedAddress() : "Unknown Location",
+                "rating", theaterDetails.rating() != null ? theaterDetails.rating() : "N/A"
+        );
     }
 
 
@@ -332,27 +271,17 @@ public class BookingController {
     public ResponseEntity<byte[]> downloadTicket(@PathVariable String bookingRef) {
         try {
             // Get booking details
-            Booking booking = bookingRepository.findByBookingReference(bookingRef)
+            BookingViewDocument view = bookingViewService.find(bookingRef)
                     .orElseThrow(() -> new RuntimeException("Booking not found"));
 
-            Showtime showtime = showtimeRepository.findById(booking.getShowtime().getId())
-                    .orElseThrow(() -> new RuntimeException("Showtime not found"));
-
-            List<BookedSeat> seats = bookedSeatRepository.findByBookingId(booking.getId());
-            List<FoodOrder> foodOrders = foodOrderRepository.findByBookingId(booking.getId());
-
-            Map<String, Object> movieDetails = fetchMovieDetails(showtime.getMovieId().toString());
-            Map<String, Object> theaterDetails = fetchTheaterDetails(showtime.getTheatreId());
-
             // Generate PDF
-            byte[] ticketPdf = ticketService.generateTicketPdf(
-                    booking, showtime, seats, foodOrders, movieDetails, theaterDetails);
+            byte[] ticketPdf = ticketService.generateTicketPdf(view);
 
             // Return PDF for download
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
             headers.setContentDispositionFormData("attachment",
-                    "ticket_" + booking.getBookingReference() + ".pdf");
+                    "ticket_" + view.reference() + ".pdf");
 
             return new ResponseEntity<>(ticketPdf, headers, HttpStatus.OK);
 
@@ -445,22 +374,45 @@ public class BookingController {
                 );
             }
 
-            // 4. Process cancellation - use string literal to match database
-            booking.setPaymentStatus("CANCELLED");
-            bookingRepository.save(booking);
+            // 4. Process cancellation in one transaction. Only the caller whose conditional update
+            // flips the status releases the seats, payment and snacks; a concurrent cancel of the
+            // same booking, or a bulk cancellation of the show, gets 0 and changes nothing
+            Boolean cancelled = transactionTemplate.execute(status -> {
+                if (bookingRepository.cancelIfActive(booking.getId()) == 0) {
+                    return false;
+                }
 
+                List<BookedSeat> seatsToRelease = bookedSeatRepository.findByBookingId(booking.getId());
+                if (!seatsToRelease.isEmpty()) {
+                    bookedSeatRepository.deleteAll(seatsToRelease);
+                    showtimeAvailabilityService.release(showtime,
+                            seatsToRelease.stream().map(BookedSeat::getCategory).collect(Collectors.toList()));
+                    seatInventoryService.releaseAfterCommit(ShowtimeKey.of(showtime),
+                            seatsToRelease.stream().map(BookedSeat::getSeatNumber).collect(Collectors.toList()));
+                }
 
-            List<BookedSeat> seatsToRelease = bookedSeatRepository.findByBookingId(booking.getId());
-            if (!seatsToRelease.isEmpty()) {
-                bookedSeatRepository.deleteAll(seatsToRelease);
-            }
+                // 5. Update payment status if exists
+                paymentRepository.transitionForBookings(List.of(booking.getId()),
+                        Payment.PaymentStatus.SUCCESSFUL, Payment.PaymentStatus.REFUND_PENDING);
 
-            // 5. Update payment status if exists
-            Payment payment = paymentRepository.findByBookingId(booking.getId());
-            if (payment != null && "SUCCESSFUL".equals(payment.getStatus())) {
-                payment.setStatus(Payment.PaymentStatus.REFUND_PENDING); // Use enum here
-                paymentRepository.save(payment);
+                // Its snacks can be sold to someone else
+                concessionStockService.returnForBookingsAfterCommit(
+                        ConcessionStockService.Slot.of(ShowtimeKey.of(showtime)), List.of(booking.getId()));
+
+                // 6. Refresh the booking's read model now that seats and payment are settled
+                outboxService.enqueue(BookingViewService.TYPE, booking.getId());
+                return true;
+            });
+            if (!Boolean.TRUE.equals(cancelled)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                        Map.of(
+                                "status", "error",
+                                "code", "ALREADY_CANCELLED",
+                                "message", "This booking was already cancelled"
+                        )
+                );
             }
+            Payment payment = paymentRepository.findByBookingId(booking.getId());
 
             return ResponseEntity.ok(
                     Map.of(
@@ -495,12 +447,24 @@ public class BookingController {
         try {
             LocalDate parsedDate = LocalDate.parse(date);
 
-            List<String> bookedSeats = bookedSeatRepository.findBookedSeatsByMovieTheaterShowtimeAndDate(
-                    movieId, theaterId, showtime, parsedDate);
+            ShowtimeKey showtimeKey = new ShowtimeKey(movieId, theaterId, parsedDate, showtime);
+            if (seatInventoryService.isCancelled(showtimeKey)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                        "status", "error",
+                        "code", "SHOWTIME_CANCELLED",
+                        "message", "This show has been cancelled"
+                ));
+            }
+            List<String> heldSeats = seatHoldService.getHeldSeats(showtimeKey);
+            List<String> bookedSeats = new ArrayList<>(seatInventoryService.getBookedSeats(showtimeKey));
+
+            // Seats in someone else's checkout are shown as taken so they cannot be picked
+            heldSeats.stream().filter(seat -> !bookedSeats.contains(seat)).forEach(bookedSeats::add);
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
-                    "bookedSeats", bookedSeats
+                    "bookedSeats", bookedSeats,
+                    "heldSeats", heldSeats
             ));
 
         } catch (DateTimeParseException e) {
@@ -1,14 +1,25 @@
 package com.movieticketbooking.movieflix.controller;
 
+import com.movieticketbooking.movieflix.dto.TmdbCredits;
+import com.movieticketbooking.movieflix.dto.TmdbGenreList;
+import com.movieticketbooking.movieflix.dto.TmdbMovie;
+import com.movieticketbooking.movieflix.dto.TmdbVideos;
+import com.movieticketbooking.movieflix.service.MovieCatalogService;
+import com.movieticketbooking.movieflix.service.MovieSearchIndex;
+import com.movieticketbooking.movieflix.service.TmdbClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -16,10 +27,17 @@ import java.util.stream.Collectors;
 @RequestMapping("/movies")
 public class MovieController {
 
-    @Value("${tmdb.api.key}")
-    private String tmdbApiKey;
+    // Time budget for all TMDB lookups behind one details request
+    @Value("${tmdb.details.deadline-ms:2500}")
+    private long detailsDeadlineMs;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final TmdbClient tmdbClient;
+    private final MovieCatalogService movieCatalogService;
+
+    public MovieController(TmdbClient tmdbClient, MovieCatalogService movieCatalogService) {
+        this.tmdbClient = tmdbClient;
+        this.movieCatalogService = movieCatalogService;
+    }
 
     @GetMapping("/now-playing")
     public ResponseEntity<Map<String, Object>> getNowPlayingMovies(
@@ -30,23 +48,19 @@ public class MovieController {
         String lang = language != null ? language : "en-US";
         String region = "IN";
 
-        String moviesUrl = "https://api.themoviedb.org/3/movie/now_playing?api_key=" + tmdbApiKey +
-                "&language=" + lang + "&region=" + region + "&page=" + page;
-
-        String genresUrl = "https://api.themoviedb.org/3/genre/movie/list?api_key=" + tmdbApiKey + "&language=en-US";
+        // Cached responses are shared, so work on copies
+        Map<String, Object> movieResponse = new LinkedHashMap<>(tmdbClient.getNowPlaying(lang, region, page));
+        TmdbGenreList genreResponse = tmdbClient.getGenres("en-US");
 
-        Map<String, Object> movieResponse = restTemplate.getForObject(moviesUrl, Map.class);
-        Map<String, Object> genreResponse = restTemplate.getForObject(genresUrl, Map.class);
-
-        List<Map<String, Object>> genresList = (List<Map<String, Object>>) genreResponse.get("genres");
-        Map<Integer, String> genreMap = genresList.stream()
-                .collect(Collectors.toMap(g -> (Integer) g.get("id"), g -> (String) g.get("name")));
+        Map<Integer, String> genreMap = genreResponse.genres() == null ? Map.of() : genreResponse.genres().stream()
+                .collect(Collectors.toMap(TmdbMovie.Genre::id, TmdbMovie.Genre::name));
 
         List<Map<String, Object>> movies = (List<Map<String, Object>>) movieResponse.get("results");
 
         List<Map<String, Object>> filteredMovies = new ArrayList<>();
 
-        for (Map<String, Object> movie : movies) {
+        for (Map<String, Object> cachedMovie : movies) {
+            Map<String, Object> movie = new LinkedHashMap<>(cachedMovie);
             List<Integer> genreIds = (List<Integer>) movie.get("genre_ids");
             StringBuilder genreNames = new StringBuilder();
 
@@ -75,16 +89,14 @@ public class MovieController {
 
     @GetMapping("/genres")
     public ResponseEntity<List<String>> getGenres() {
-        String genresUrl = "https://api.themoviedb.org/3/genre/movie/list?api_key=" + tmdbApiKey + "&language=en-US";
-        Map<String, Object> genreResponse = restTemplate.getForObject(genresUrl, Map.class);
+        TmdbGenreList genreResponse = tmdbClient.getGenres("en-US");
 
-        if (genreResponse == null || !genreResponse.containsKey("genres")) {
+        if (genreResponse.genres() == null) {
             return ResponseEntity.ok(Collections.emptyList());
         }
 
-        List<Map<String, Object>> genresList = (List<Map<String, Object>>) genreResponse.get("genres");
-        List<String> genreNames = genresList.stream()
-                .map(g -> (String) g.get("name"))
+        List<String> genreNames = genreResponse.genres().stream()
+                .map(TmdbMovie.Genre::name)
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(genreNames);
@@ -92,19 +104,28 @@ public class MovieController {
 
     @GetMapping("/details")
     public ResponseEntity<Map<String, Object>> getMovieDetails(@RequestParam String id) {
-        String movieUrl = "https://api.themoviedb.org/3/movie/" + id + "?api_key=" + tmdbApiKey + "&language=en-US";
-        String creditsUrl = "https://api.themoviedb.org/3/movie/" + id + "/credits?api_key=" + tmdbApiKey;
-        String videosUrl = "https://api.themoviedb.org/3/movie/" + id + "/videos?api_key=" + tmdbApiKey;
-        String nowPlayingUrl = "https://api.themoviedb.org/3/movie/now_playing?api_key=" + tmdbApiKey + "&language=en-US&region=IN";
-
-        Map<String, Object> movieDetails = restTemplate.getForObject(movieUrl, Map.class);
-        Map<String, Object> creditsResponse = restTemplate.getForObject(creditsUrl, Map.class);
-        Map<String, Object> videosResponse = restTemplate.getForObject(videosUrl, Map.class);
-        Map<String, Object> nowPlayingResponse = restTemplate.getForObject(nowPlayingUrl, Map.class);
-
-        if (movieDetails == null) {
-            return ResponseEntity.notFound().build();
+        // All four lookups run at once; the page waits for the slowest, not the sum
+        CompletableFuture<Map<String, Object>> movieFuture = tmdbClient.getMovieAsync(id);
+        CompletableFuture<TmdbCredits> creditsFuture = tmdbClient.getCreditsAsync(id);
+        CompletableFuture<TmdbVideos> videosFuture = tmdbClient.getVideosAsync(id);
+        CompletableFuture<Boolean> nowPlayingFuture = tmdbClient.isNowPlayingAsync(id);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(detailsDeadlineMs);
+
+        Map<String, Object> movie;
+        try {
+            movie = awaitRequired(movieFuture, deadline);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of(
+                    "status", "error",
+                    "code", "UPSTREAM_TIMEOUT",
+                    "message", "Movie details are taking too long to load, please retry"
+            ));
         }
+        Map<String, Object> movieDetails = new LinkedHashMap<>(movie);
+        // Cast, crew, trailer and the now-playing flag are left out rather than failing the page
+        TmdbCredits creditsResponse = awaitOptional(creditsFuture, deadline, new TmdbCredits(List.of(), List.of()));
+        TmdbVideos videosResponse = awaitOptional(videosFuture, deadline, new TmdbVideos(List.of()));
+        boolean isNowPlaying = awaitOptional(nowPlayingFuture, deadline, false);
 
         // Extracting essential details
         String posterPath = (String) movieDetails.get("poster_path");
@@ -116,11 +137,6 @@ public class MovieController {
                 .map(g -> (String) g.get("name"))
                 .collect(Collectors.toList());
 
-        // Check if the movie is currently playing
-        List<Map<String, Object>> nowPlayingMovies = (List<Map<String, Object>>) nowPlayingResponse.get("results");
-        boolean isNowPlaying = nowPlayingMovies.stream()
-                .anyMatch(movie -> String.valueOf(movie.get("id")).equals(id));
-
         movieDetails.put("isNowPlaying", isNowPlaying);
         movieDetails.put("posterPath", posterPath != null ? "https://image.tmdb.org/t/p/w500" + posterPath : null);
         movieDetails.put("releaseDate", releaseDate);
@@ -130,34 +146,24 @@ public class MovieController {
 
 
         // Fetch Cast
-        List<Map<String, Object>> castList = (List<Map<String, Object>>) creditsResponse.get("cast");
+        List<TmdbCredits.Person> castList = creditsResponse.cast() != null ? creditsResponse.cast() : List.of();
         List<Map<String, Object>> limitedCast = castList.stream()
                 .limit(10)
-                .map(cast -> Map.of(
-                        "id", cast.get("id"),
-                        "name", cast.get("name"),
-                        "character", cast.get("character"),
-                        "profile_path", cast.get("profile_path")
-                ))
+                .map(cast -> person(cast, "character", cast.character()))
                 .collect(Collectors.toList());
 
         // Fetch Crew (Director & Others)
-        List<Map<String, Object>> crewList = (List<Map<String, Object>>) creditsResponse.get("crew");
+        List<TmdbCredits.Person> crewList = creditsResponse.crew() != null ? creditsResponse.crew() : List.of();
         List<Map<String, Object>> directors = crewList.stream()
-                .filter(member -> "Director".equals(member.get("job")))
-                .map(director -> Map.of(
-                        "id", director.get("id"),
-                        "name", director.get("name"),
-                        "profile_path", director.get("profile_path"),
-                        "job", director.get("job")
-                ))
+                .filter(member -> "Director".equals(member.job()))
+                .map(director -> person(director, "job", director.job()))
                 .collect(Collectors.toList());
 
         // Fetch Trailer
-        List<Map<String, Object>> videoResults = (List<Map<String, Object>>) videosResponse.get("results");
+        List<TmdbVideos.Video> videoResults = videosResponse.results() != null ? videosResponse.results() : List.of();
         Optional<String> trailerKey = videoResults.stream()
-                .filter(video -> "Trailer".equals(video.get("type")) && "YouTube".equals(video.get("site")))
-                .map(video -> (String) video.get("key"))
+                .filter(video -> "Trailer".equals(video.type()) && "YouTube".equals(video.site()))
+                .map(TmdbVideos.Video::key)
                 .findFirst();
 
         movieDetails.put("cast", limitedCast);
@@ -167,15 +173,57 @@ public class MovieController {
         return ResponseEntity.ok(movieDetails);
     }
 
+    // Same keys as the TMDB credit entries; profile_path is often null, which Map.of rejects
+    private static Map<String, Object> person(TmdbCredits.Person person, String roleKey, String role) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", person.id());
+        map.put("name", person.name());
+        map.put(roleKey, role);
+        map.put("profile_path", person.profilePath());
+        return map;
+    }
 
-    @GetMapping("/search")
-    public ResponseEntity<List<Map<String, Object>>> searchMovies(@RequestParam String name) {
-        String searchUrl = "https://api.themoviedb.org/3/search/movie?api_key=" + tmdbApiKey + "&query=" + name + "&language=en-US";
+    private static <T> T awaitRequired(CompletableFuture<T> future, long deadline) throws TimeoutException {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
 
-        Map<String, Object> response = restTemplate.getForObject(searchUrl, Map.class);
-        List<Map<String, Object>> movies = (List<Map<String, Object>>) response.get("results");
+    // A late lookup keeps running and fills the cache for the next request
+    private static <T> T awaitOptional(CompletableFuture<T> future, long deadline, T fallback) {
+        try {
+            return awaitRequired(future, deadline);
+        } catch (TimeoutException | RuntimeException e) {
+            return fallback;
+        }
+    }
+
+
+    // Answered from the local index; TMDB is only asked when nothing local matches
+    @GetMapping("/search")
+    public ResponseEntity<List<Map<String, Object>>> searchMovies(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(movieCatalogService.search(name, Math.min(limit, 50)).stream()
+                .map(MovieSearchIndex.Entry::toMap)
+                .collect(Collectors.toList()));
+    }
 
-        return ResponseEntity.ok(movies);
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<Map<String, Object>>> typeahead(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(movieCatalogService.typeahead(q, Math.min(limit, 20)).stream()
+                .map(MovieSearchIndex.Entry::toMap)
+                .collect(Collectors.toList()));
     }
 
 
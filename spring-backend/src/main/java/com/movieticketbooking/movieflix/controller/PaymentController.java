@@ -1,7 +1,9 @@
 package com.movieticketbooking.movieflix.controller;
 
 import com.movieticketbooking.movieflix.service.PaymentService;
+import com.movieticketbooking.movieflix.service.WebhookService;
 import jakarta.servlet.http.HttpSession;
+import org.json.JSONException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,9 +18,11 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final WebhookService webhookService;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, WebhookService webhookService) {
         this.paymentService = paymentService;
+        this.webhookService = webhookService;
     }
 
     @PostMapping("/create-order")
@@ -47,4 +51,39 @@ public class PaymentController {
 
         return paymentService.verifyAndCompletePayment(verificationRequest);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/cancel-order")
+    public ResponseEntity<?> cancelOrder(@RequestBody Map<String, String> body, HttpSession session) {
+        User user = (User) session.getAttribute("user");
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "User not authenticated"));
+        }
+
+        String orderId = body.get("orderId");
+        if (orderId == null || orderId.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "orderId is required"));
+        }
+
+        paymentService.releaseOrderHold(orderId, user.getEmail());
+        return ResponseEntity.ok(Map.of("status", "success"));
+    }
+
+    // Razorpay calls this directly, so it is authenticated by the signature rather than a session.
+    // The event is only stored here; it is processed in the background.
+    @PostMapping("/webhook")
+    public ResponseEntity<?> razorpayWebhook(
+            @RequestBody String payload,
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
+        try {
+            WebhookService.IngestResult result = webhookService.ingest(payload, signature, eventId);
+            if (result == WebhookService.IngestResult.INVALID_SIGNATURE) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid webhook signature"));
+            }
+            return ResponseEntity.ok(Map.of("status", result.name().toLowerCase()));
+        } catch (JSONException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Malformed webhook payload"));
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package com.movieticketbooking.movieflix.controller;
 
+import com.movieticketbooking.movieflix.models.Showtime;
+import com.movieticketbooking.movieflix.repository.ShowtimeRepository;
+import com.movieticketbooking.movieflix.service.ShowtimeAvailabilityService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/showtimes")
 @CrossOrigin(origins = "https://movieflix-sooty.vercel.app")
 public class ShowtimeController {
 
+    private final ShowtimeRepository showtimeRepository;
+    private final ShowtimeAvailabilityService showtimeAvailabilityService;
+
+    public ShowtimeController(ShowtimeRepository showtimeRepository,
+                              ShowtimeAvailabilityService showtimeAvailabilityService) {
+        this.showtimeRepository = showtimeRepository;
+        this.showtimeAvailabilityService = showtimeAvailabilityService;
+    }
+
     @GetMapping
     public ResponseEntity<?> getShowtimes(
             @RequestParam String theatreId,
@@ -25,14 +38,23 @@ public class ShowtimeController {
 
         List<String> fixedShowtimes = Arrays.asList("7:00 AM", "10:00 AM", "1:00 PM", "4:00 PM", "7:00 PM", "10:00 PM");
 
+        // One query for the day; each row already carries its remaining seats per category
+        Map<String, Showtime> existingShowtimes = showtimeRepository
+                .findByMovieIdAndTheatreIdAndDate(movieId, theatreId, selectedDate)
+                .stream()
+                .collect(Collectors.toMap(Showtime::getTime, s -> s, (a, b) -> a));
+
         List<Map<String, Object>> showtimesResponse = new ArrayList<>();
         for (String time : fixedShowtimes) {
+            Showtime showtime = existingShowtimes.get(time);
             Map<String, Object> showtimeMap = new HashMap<>();
             showtimeMap.put("theatreId", theatreId);
             showtimeMap.put("movieId", movieId);
             showtimeMap.put("date", selectedDate.toString());
             showtimeMap.put("time", time);
-            showtimeMap.put("seatCategories", getSeatPrices());
+            showtimeMap.put("seatCategories", showtimeAvailabilityService.getSeatCategories(showtime));
+            showtimeMap.put("soldOut", showtime != null && showtimeAvailabilityService.isSoldOut(showtime));
+            showtimeMap.put("cancelled", showtime != null && showtime.isCancelled());
 
             showtimesResponse.add(showtimeMap);
         }
@@ -46,11 +68,7 @@ public class ShowtimeController {
     }
 
     private List<Map<String, Object>> getSeatPrices() {
-        return List.of(
-                Map.of("type", "Silver", "seatsAvailable", 40, "price", 140.0),
-                Map.of("type", "Gold", "seatsAvailable", 20, "price", 170.0),
-                Map.of("type", "Platinum", "seatsAvailable", 10, "price", 210.0)
-        );
+        return showtimeAvailabilityService.getSeatCategories(null);
     }
 
     @PostMapping("/book-ticket")
@@ -1,15 +1,11 @@
 package com.movieticketbooking.movieflix.controller;
 
+import com.movieticketbooking.movieflix.dto.Place;
+import com.movieticketbooking.movieflix.service.NearbyTheatreCache;
+import com.movieticketbooking.movieflix.service.TheatreRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,74 +14,55 @@ import java.util.List;
 @CrossOrigin(origins = "https://movieflix-sooty.vercel.app")
 public class TheatreController {
 
-    @Value("${google.api.key}")
-    private String googlePlacesApiKey;
+    private final NearbyTheatreCache nearbyTheatreCache;
+    private final TheatreRegistry theatreRegistry;
+
+    @Value("${theatres.nearby.max-results:20}")
+    private int maxResults;
+
+    public TheatreController(NearbyTheatreCache nearbyTheatreCache, TheatreRegistry theatreRegistry) {
+        this.nearbyTheatreCache = nearbyTheatreCache;
+        this.theatreRegistry = theatreRegistry;
+    }
 
     @PostMapping("/nearby")
     public ResponseEntity<List<TheatreDTO>> getNearbyTheatres(@RequestBody LocationRequest locationRequest) {
         double userLat = locationRequest.getLat();
         double userLon = locationRequest.getLon();
 
-        String url = "https://places.googleapis.com/v1/places:searchNearby?key=" + googlePlacesApiKey;
-
-        RestTemplate restTemplate = new RestTemplate();
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("X-Goog-FieldMask", "places.displayName,places.id,places.formattedAddress,places.rating,places.location");
-
-        String requestBody = "{ \"includedTypes\": [\"movie_theater\"], \"locationRestriction\": { \"circle\": { \"center\": { \"latitude\": " + userLat + ", \"longitude\": " + userLon + " }, \"radius\": 25000 } } }";
+        // Places is only asked about areas the registry hasn't searched recently
+        nearbyTheatreCache.ensureSearched(userLat, userLon);
+        List<TheatreRegistry.Nearby> nearby = theatreRegistry.nearest(
+                userLat, userLon, nearbyTheatreCache.radiusMeters() / 1000, maxResults);
 
-        HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, requestEntity, String.class);
-
-        List<TheatreDTO> theatres = parseTheatreData(response.getBody(), userLat, userLon);
+        List<TheatreDTO> theatres = toTheatres(nearby);
         return ResponseEntity.ok(theatres);
     }
 
 
     @GetMapping("/details")
     public ResponseEntity<TheatreDTO> getTheatreDetails(@RequestParam String theatreId) {
-        String url = "https://places.googleapis.com/v1/places/" + theatreId + "?key=" + googlePlacesApiKey;
-
-        RestTemplate restTemplate = new RestTemplate();
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("X-Goog-FieldMask", "displayName,formattedAddress,rating,location,internationalPhoneNumber,currentOpeningHours");
-
-        HttpEntity<String> requestEntity = new HttpEntity<>(headers);
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, requestEntity, String.class);
+        Place place = theatreRegistry.get(theatreId);
 
-        return ResponseEntity.ok(parseTheatreDetails(response.getBody()));
+        return ResponseEntity.ok(toTheatreDetails(place));
     }
 
-    private TheatreDTO parseTheatreDetails(String response) {
-        ObjectMapper objectMapper = new ObjectMapper();
+    private TheatreDTO toTheatreDetails(Place place) {
         TheatreDTO theatre = new TheatreDTO();
+        if (place == null) {
+            return theatre;
+        }
 
-        try {
-            JsonNode jsonResponse = objectMapper.readTree(response);
-
-            if (jsonResponse.has("displayName")) {
-                theatre.setName(jsonResponse.get("displayName").get("text").asText());
-            }
-
-            if (jsonResponse.has("formattedAddress")) {
-                theatre.setAddress(jsonResponse.get("formattedAddress").asText());
-            }
-
-            if (jsonResponse.has("rating")) {
-                theatre.setRating(jsonResponse.get("rating").asDouble());
-            }
-
-            if (jsonResponse.has("location")) {
-                JsonNode location = jsonResponse.get("location");
-                theatre.setLatitude(location.get("latitude").asDouble());
-                theatre.setLongitude(location.get("longitude").asDouble());
-            }
+        theatre.setName(place.name());
+        theatre.setAddress(place.formattedAddress());
 
+        if (place.rating() != null) {
+            theatre.setRating(place.rating());
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (place.location() != null) {
+            theatre.setLatitude(place.location().latitude());
+            theatre.setLongitude(place.location().longitude());
         }
 
         return theatre;
@@ -93,64 +70,25 @@ public class TheatreController {
 
 
 
-    private List<TheatreDTO> parseTheatreData(String response, double userLat, double userLon) {
+    private List<TheatreDTO> toTheatres(List<TheatreRegistry.Nearby> nearby) {
         List<TheatreDTO> theatres = new ArrayList<>();
-        ObjectMapper objectMapper = new ObjectMapper();
-
-        try {
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            JsonNode places = jsonResponse.get("places");
-
-            if (places == null || places.isEmpty()) {
-                return theatres;
-            }
-
-            for (JsonNode theatreJson : places) {
-                if (!theatreJson.has("displayName") || !theatreJson.has("id")) continue;
-
-                String name = theatreJson.get("displayName").get("text").asText();
-
-                if (!name.toLowerCase().contains("cinema") && !name.toLowerCase().contains("theatre") &&
-                        !name.toLowerCase().contains("theater")) {
-                    continue;
-                }
-
-                TheatreDTO theatre = new TheatreDTO();
-                theatre.setId(theatreJson.get("id").asText());
-                theatre.setName(name);
-                theatre.setAddress(theatreJson.has("formattedAddress") ? theatreJson.get("formattedAddress").asText() : "Address not available");
-                theatre.setRating(theatreJson.has("rating") ? theatreJson.get("rating").asDouble() : 0.0);
-
-                if (theatreJson.has("location")) {
-                    JsonNode location = theatreJson.get("location");
-                    double theatreLat = location.get("latitude").asDouble();
-                    double theatreLon = location.get("longitude").asDouble();
-                    theatre.setLatitude(theatreLat);
-                    theatre.setLongitude(theatreLon);
-
-                    // Calculate Distance
-                    theatre.setDistance(calculateDistance(userLat, userLon, theatreLat, theatreLon));
-                }
-
-                theatres.add(theatre);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
 
-        return theatres;
-    }
+        for (TheatreRegistry.Nearby entry : nearby) {
+            Place place = entry.place();
 
+            TheatreDTO theatre = new TheatreDTO();
+            theatre.setId(place.id());
+            theatre.setName(place.name());
+            theatre.setAddress(place.formattedAddress() != null ? place.formattedAddress() : "Address not available");
+            theatre.setRating(place.rating() != null ? place.rating() : 0.0);
+            theatre.setLatitude(place.location().latitude());
+            theatre.setLongitude(place.location().longitude());
+            theatre.setDistance(entry.distanceKm());
 
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371;
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c; // Distance in km
+            theatres.add(theatre);
+        }
+
+        return theatres;
     }
 
 
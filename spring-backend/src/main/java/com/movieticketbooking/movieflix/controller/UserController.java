@@ -46,6 +46,9 @@ public class UserController {
     @Autowired
     private BCryptPasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static final String UPLOAD_DIR = System.getProperty("user.dir") + File.separator + "user_photos" + File.separator;
 
     @PostMapping(value = "/register", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
@@ -229,7 +232,7 @@ public class UserController {
         String returnUrl = "/";
         if (state != null && !state.isEmpty()) {
             try {
-                Map<String, String> stateMap = new ObjectMapper().readValue(URLDecoder.decode(state, "UTF-8"),
+                Map<String, String> stateMap = objectMapper.readValue(URLDecoder.decode(state, "UTF-8"),
                         new TypeReference<Map<String, String>>() {});
                 returnUrl = stateMap.getOrDefault("returnUrl", "/");
             } catch (Exception e) {
@@ -0,0 +1,90 @@
+package com.movieticketbooking.movieflix.controller;
+
+import com.movieticketbooking.movieflix.models.WebhookEvent;
+import com.movieticketbooking.movieflix.repository.WebhookEventRepository;
+import com.movieticketbooking.movieflix.service.WebhookService;
+import org.json.JSONObject;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+// Local stand-in for Razorpay: signs and ingests synthetic webhook events for throughput testing
+@Profile("dev")
+@RestController
+@RequestMapping("/api/dev/webhooks")
+public class WebhookReplayController {
+
+    private final WebhookService webhookService;
+    private final WebhookEventRepository webhookEventRepository;
+
+    public WebhookReplayController(WebhookService webhookService, WebhookEventRepository webhookEventRepository) {
+        this.webhookService = webhookService;
+        this.webhookEventRepository = webhookEventRepository;
+    }
+
+    @PostMapping("/replay")
+    public ResponseEntity<?> replay(@RequestParam(defaultValue = "1000") int count,
+                                    @RequestParam(defaultValue = "payment.captured") String event,
+                                    @RequestParam(required = false) String orderId,
+                                    @RequestParam(defaultValue = "100") double amount) {
+        if (!webhookService.isConfigured()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "razorpay.webhook.secret is not set"));
+        }
+
+        long start = System.nanoTime();
+        int accepted = 0;
+        for (int i = 0; i < count; i++) {
+            String payload = syntheticEvent(event, orderId, amount).toString();
+            WebhookService.IngestResult result = webhookService.ingest(
+                    payload, webhookService.sign(payload), "evt_replay_" + UUID.randomUUID());
+            if (result == WebhookService.IngestResult.ACCEPTED) {
+                accepted++;
+            }
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        return ResponseEntity.ok(Map.of(
+                "accepted", accepted,
+                "elapsedMs", elapsedMs,
+                "eventsPerSecond", accepted * 1000L / elapsedMs,
+                "pending", webhookEventRepository.countByStatus(WebhookEvent.Status.PENDING)
+        ));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(Map.of(
+                "pending", webhookEventRepository.countByStatus(WebhookEvent.Status.PENDING),
+                "processing", webhookEventRepository.countByStatus(WebhookEvent.Status.PROCESSING),
+                "processed", webhookEventRepository.countByStatus(WebhookEvent.Status.PROCESSED),
+                "failed", webhookEventRepository.countByStatus(WebhookEvent.Status.FAILED)
+        ));
+    }
+
+    // Same shape as Razorpay's payloads, reduced to the fields the processor reads
+    private JSONObject syntheticEvent(String event, String orderId, double amount) {
+        long paise = Math.round(amount * 100);
+        String paymentId = "pay_replay_" + UUID.randomUUID().toString().replace("-", "").substring(0, 14);
+        JSONObject payload = new JSONObject();
+        if (event.startsWith("refund.")) {
+            payload.put("refund", new JSONObject().put("entity", new JSONObject()
+                    .put("id", "rfnd_replay_" + UUID.randomUUID().toString().substring(0, 8))
+                    .put("payment_id", paymentId)
+                    .put("amount", paise)));
+        } else {
+            payload.put("payment", new JSONObject().put("entity", new JSONObject()
+                    .put("id", paymentId)
+                    .put("order_id", orderId != null ? orderId : "order_replay_" + UUID.randomUUID().toString().substring(0, 8))
+                    .put("amount", paise)
+                    .put("status", "captured")));
+        }
+        return new JSONObject()
+                .put("entity", "event")
+                .put("event", event)
+                .put("payload", payload)
+                .put("created_at", System.currentTimeMillis() / 1000);
+    }
+}
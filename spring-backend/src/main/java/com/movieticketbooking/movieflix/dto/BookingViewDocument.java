@@ -0,0 +1,29 @@
+package com.movieticketbooking.movieflix.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Everything the booking detail, ticket and history views show, stored as one JSON document per booking
+public record BookingViewDocument(
+        Long bookingId,
+        String reference,
+        Long userId,
+        String paymentStatus,
+        String paymentMethod,
+        double totalAmount,
+        LocalDateTime bookingTime,
+        Long movieId,
+        String theatreId,
+        LocalDate showDate,
+        String showTime,
+        List<Seat> seats,
+        List<Food> foodItems,
+        Map<String, Object> movie,   // Catalog details in TMDB's shape
+        Place theatre
+) {
+    public record Seat(String number, String category, double price) {}
+
+    public record Food(String name, String imageUrl, int quantity, double price) {}
+}
@@ -0,0 +1,13 @@
+package com.movieticketbooking.movieflix.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// An item from the external food menu API; only the fields the food catalog reads
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MenuItem(
+        String id,
+        String name,
+        String dsc,
+        String img,
+        String category
+) {}
@@ -0,0 +1,23 @@
+package com.movieticketbooking.movieflix.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// The Google Places fields the app reads; anything else in the payload is skipped while parsing
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Place(
+        String id,
+        LocalizedText displayName,
+        String formattedAddress,
+        Double rating,
+        LatLng location
+) {
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record LocalizedText(String text) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record LatLng(double latitude, double longitude) {}
+
+    public String name() {
+        return displayName != null ? displayName.text() : null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.movieticketbooking.movieflix.dto;
+
+import com.movieticketbooking.movieflix.models.Showtime;
+
+import java.time.LocalDate;
+
+// Natural key of a show: the same columns the booked-seats lookup filters on
+public record ShowtimeKey(
+        Long movieId,
+        String theatreId,
+        LocalDate date,
+        String time
+) {
+    public static ShowtimeKey of(Showtime showtime) {
+        return new ShowtimeKey(
+                showtime.getMovieId(),
+                showtime.getTheatreId(),
+                showtime.getDate(),
+                showtime.getTime()
+        );
+    }
+}
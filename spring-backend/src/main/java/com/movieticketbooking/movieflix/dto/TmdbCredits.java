@@ -0,0 +1,20 @@
+package com.movieticketbooking.movieflix.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TmdbCredits(List<Person> cast, List<Person> crew) {
+
+    // Cast members have a character, crew members a job
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Person(
+            Long id,
+            String name,
+            String character,
+            String job,
+            @JsonProperty("profile_path") String profilePath
+    ) {}
+}
@@ -0,0 +1,8 @@
+package com.movieticketbooking.movieflix.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TmdbGenreList(List<TmdbMovie.Genre> genres) {}
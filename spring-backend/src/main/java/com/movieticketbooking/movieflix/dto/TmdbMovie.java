@@ -0,0 +1,23 @@
+package com.movieticketbooking.movieflix.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+// The TMDB movie fields the local catalog keeps
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TmdbMovie(
+        Long id,
+        String title,
+        @JsonProperty("poster_path") String posterPath,
+        List<Genre> genres,
+        @JsonProperty("vote_average") Double voteAverage,
+        Integer runtime,
+        String overview,
+        @JsonProperty("original_language") String originalLanguage,
+        @JsonProperty("release_date") String releaseDate
+) {
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Genre(Integer id, String name) {}
+}
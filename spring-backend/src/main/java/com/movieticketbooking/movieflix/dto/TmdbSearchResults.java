@@ -0,0 +1,19 @@
+package com.movieticketbooking.movieflix.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TmdbSearchResults(List<Result> results) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Result(
+            Long id,
+            String title,
+            @JsonProperty("poster_path") String posterPath,
+            @JsonProperty("release_date") String releaseDate,
+            @JsonProperty("vote_average") Double voteAverage
+    ) {}
+}
@@ -0,0 +1,12 @@
+package com.movieticketbooking.movieflix.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TmdbVideos(List<Video> results) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Video(String key, String site, String type) {}
+}
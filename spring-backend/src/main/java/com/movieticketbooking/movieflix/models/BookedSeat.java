@@ -8,7 +8,8 @@ import java.time.LocalDate;
 @Table(name = "booked_seats")
 public class BookedSeat {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booked_seat_seq")
+    @SequenceGenerator(name = "booked_seat_seq", sequenceName = "booked_seats_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -5,11 +5,15 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", uniqueConstraints = {
+        // The Razorpay order id; one order can only ever produce one booking
+        @UniqueConstraint(name = "uk_bookings_booking_reference", columnNames = "booking_reference")
+})
 public class Booking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -170,7 +174,7 @@ public class Booking {
     public void setPayment(Payment payment) {
         this.payment = payment;
         if (payment != null) {
-            this.paymentId = payment.getId().toString();
+            this.paymentId = payment.getId() != null ? payment.getId().toString() : null;
             payment.setBooking(this);
         } else {
             this.paymentId = null;
@@ -0,0 +1,55 @@
+package com.movieticketbooking.movieflix.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Read model of a booking: its views are rendered from document, written by BookingViewService
+@Entity
+@Table(name = "booking_views", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_booking_views_booking_id", columnNames = "booking_id")
+}, indexes = {
+        // Serves a user's booking history in keyset order
+        @Index(name = "idx_booking_views_user_booking_time", columnList = "user_id, booking_time, booking_id")
+})
+public class BookingView {
+
+    @Id
+    @Column(name = "booking_reference")
+    private String bookingReference;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "booking_time", nullable = false)
+    private LocalDateTime bookingTime;
+
+    @Column(name = "payment_status", nullable = false)
+    private String paymentStatus;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String document;
+
+    @Column(name = "projected_at", nullable = false)
+    private LocalDateTime projectedAt;
+
+    public BookingView() {}
+
+    public String getBookingReference() { return bookingReference; }
+    public void setBookingReference(String bookingReference) { this.bookingReference = bookingReference; }
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public LocalDateTime getBookingTime() { return bookingTime; }
+    public void setBookingTime(LocalDateTime bookingTime) { this.bookingTime = bookingTime; }
+    public String getPaymentStatus() { return paymentStatus; }
+    public void setPaymentStatus(String paymentStatus) { this.paymentStatus = paymentStatus; }
+    public String getDocument() { return document; }
+    public void setDocument(String document) { this.document = document; }
+    public LocalDateTime getProjectedAt() { return projectedAt; }
+    public void setProjectedAt(LocalDateTime projectedAt) { this.projectedAt = projectedAt; }
+}
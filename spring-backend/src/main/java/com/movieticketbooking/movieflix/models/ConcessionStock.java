@@ -0,0 +1,51 @@
+package com.movieticketbooking.movieflix.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// How many of a food item a theatre's snack bar has for one show slot, and how many are sold
+@Entity
+@Table(name = "concession_stock",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"theatre_id", "show_date", "show_time", "food_item_id"}))
+public class ConcessionStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "concession_stock_seq")
+    @SequenceGenerator(name = "concession_stock_seq", sequenceName = "concession_stock_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "theatre_id", nullable = false)
+    private String theatreId;
+
+    @Column(name = "show_date", nullable = false)
+    private LocalDate showDate;
+
+    @Column(name = "show_time", nullable = false)
+    private String showTime;
+
+    @Column(name = "food_item_id", nullable = false)
+    private Long foodItemId;
+
+    @Column(nullable = false)
+    private int capacity;
+
+    // Written back in batches by ConcessionStockService
+    @Column(nullable = false)
+    private int sold;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getTheatreId() { return theatreId; }
+    public void setTheatreId(String theatreId) { this.theatreId = theatreId; }
+    public LocalDate getShowDate() { return showDate; }
+    public void setShowDate(LocalDate showDate) { this.showDate = showDate; }
+    public String getShowTime() { return showTime; }
+    public void setShowTime(String showTime) { this.showTime = showTime; }
+    public Long getFoodItemId() { return foodItemId; }
+    public void setFoodItemId(Long foodItemId) { this.foodItemId = foodItemId; }
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+    public int getSold() { return sold; }
+    public void setSold(int sold) { this.sold = sold; }
+}
@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 
 @Entity
-@Table(name = "food_items")
+@Table(name = "food_items", uniqueConstraints =
+        @UniqueConstraint(name = "uk_food_items_name", columnNames = "name"))
 public class FoodItem {
 
     @Id
@@ -33,6 +34,9 @@ public class FoodItem {
     @Column(nullable = false)
     private FoodCategory category;
 
+    // The food menu category the item is listed under; null for items that are not on the menu
+    private String menuCategory;
+
     // Food category enum
     public enum FoodCategory {
         POPCORN, BEVERAGE, COMBO, SNACK, DESSERT
@@ -62,4 +66,6 @@ public class FoodItem {
     public void setIsAvailable(Boolean isAvailable) { this.isAvailable = isAvailable; }
     public FoodCategory getCategory() { return category; }
     public void setCategory(FoodCategory category) { this.category = category; }
+    public String getMenuCategory() { return menuCategory; }
+    public void setMenuCategory(String menuCategory) { this.menuCategory = menuCategory; }
 }
\ No newline at end of file
@@ -8,7 +8,8 @@ import jakarta.validation.constraints.*;
 public class FoodOrder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "food_order_seq")
+    @SequenceGenerator(name = "food_order_seq", sequenceName = "food_orders_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,65 @@
+package com.movieticketbooking.movieflix.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Local copy of the TMDB fields booking pages and tickets show, keyed by the TMDB movie id
+@Entity
+@Table(name = "movies")
+public class Movie {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(name = "poster_path")
+    private String posterPath;
+
+    // Comma-separated genre names, in TMDB order
+    private String genres;
+
+    @Column(name = "vote_average")
+    private Double voteAverage;
+
+    private Integer runtime;
+
+    @Column(columnDefinition = "TEXT")
+    private String overview;
+
+    @Column(name = "original_language", length = 10)
+    private String originalLanguage;
+
+    @Column(name = "release_date", length = 10)
+    private String releaseDate;
+
+    @Column(name = "synced_at", nullable = false)
+    private LocalDateTime syncedAt;
+
+    public Movie() {
+        this.syncedAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getPosterPath() { return posterPath; }
+    public void setPosterPath(String posterPath) { this.posterPath = posterPath; }
+    public String getGenres() { return genres; }
+    public void setGenres(String genres) { this.genres = genres; }
+    public Double getVoteAverage() { return voteAverage; }
+    public void setVoteAverage(Double voteAverage) { this.voteAverage = voteAverage; }
+    public Integer getRuntime() { return runtime; }
+    public void setRuntime(Integer runtime) { this.runtime = runtime; }
+    public String getOverview() { return overview; }
+    public void setOverview(String overview) { this.overview = overview; }
+    public String getOriginalLanguage() { return originalLanguage; }
+    public void setOriginalLanguage(String originalLanguage) { this.originalLanguage = originalLanguage; }
+    public String getReleaseDate() { return releaseDate; }
+    public void setReleaseDate(String releaseDate) { this.releaseDate = releaseDate; }
+    public LocalDateTime getSyncedAt() { return syncedAt; }
+    public void setSyncedAt(LocalDateTime syncedAt) { this.syncedAt = syncedAt; }
+}
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_seq")
+    @SequenceGenerator(name = "payment_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -33,6 +34,10 @@ public class Payment {
     @Column(nullable = false)
     private LocalDateTime paymentTime;
 
+    // Total refunded so far, as reported by the gateway's refund webhooks
+    @Column(name = "amount_refunded_paise", nullable = false, columnDefinition = "bigint default 0")
+    private long amountRefundedPaise;
+
 
     // Payment status enum
     public enum PaymentStatus {
@@ -77,6 +82,8 @@ public class Payment {
     public void setMethod(PaymentMethod method) { this.method = method; }
     public LocalDateTime getPaymentTime() { return paymentTime; }
     public void setPaymentTime(LocalDateTime paymentTime) { this.paymentTime = paymentTime; }
+    public long getAmountRefundedPaise() { return amountRefundedPaise; }
+    public void setAmountRefundedPaise(long amountRefundedPaise) { this.amountRefundedPaise = amountRefundedPaise; }
 
 }
 
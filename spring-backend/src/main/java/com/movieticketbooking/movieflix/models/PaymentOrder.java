@@ -0,0 +1,73 @@
+package com.movieticketbooking.movieflix.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// What the customer asked for when the Razorpay order was created, keyed by the Razorpay order id
+@Entity
+@Table(name = "payment_orders")
+public class PaymentOrder {
+
+    @Id
+    @Column(name = "razorpay_order_id", length = 64)
+    private String razorpayOrderId;
+
+    @Column(name = "user_email", nullable = false)
+    private String userEmail;
+
+    @Column(name = "movie_id", nullable = false)
+    private String movieId;
+
+    @Column(name = "theater_id", nullable = false)
+    private String theaterId;
+
+    @Column(nullable = false)
+    private String showtime;
+
+    @Column(nullable = false)
+    private String date;
+
+    private String category;
+
+    // Comma-separated seat labels, as sent to verification
+    @Column(columnDefinition = "TEXT")
+    private String seats;
+
+    // JSON array of the food items in the cart
+    @Column(name = "food_items", columnDefinition = "TEXT")
+    private String foodItems;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public PaymentOrder() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public String getRazorpayOrderId() { return razorpayOrderId; }
+    public void setRazorpayOrderId(String razorpayOrderId) { this.razorpayOrderId = razorpayOrderId; }
+    public String getUserEmail() { return userEmail; }
+    public void setUserEmail(String userEmail) { this.userEmail = userEmail; }
+    public String getMovieId() { return movieId; }
+    public void setMovieId(String movieId) { this.movieId = movieId; }
+    public String getTheaterId() { return theaterId; }
+    public void setTheaterId(String theaterId) { this.theaterId = theaterId; }
+    public String getShowtime() { return showtime; }
+    public void setShowtime(String showtime) { this.showtime = showtime; }
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public String getSeats() { return seats; }
+    public void setSeats(String seats) { this.seats = seats; }
+    public String getFoodItems() { return foodItems; }
+    public void setFoodItems(String foodItems) { this.foodItems = foodItems; }
+    public double getAmount() { return amount; }
+    public void setAmount(double amount) { this.amount = amount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
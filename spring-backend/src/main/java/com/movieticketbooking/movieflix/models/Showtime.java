@@ -10,6 +10,11 @@ import jakarta.validation.constraints.NotNull;
 @Table(name = "showtimes")
 public class Showtime {
 
+    // Seats per category in every auditorium
+    public static final int SILVER_CAPACITY = 40;
+    public static final int GOLD_CAPACITY = 20;
+    public static final int PLATINUM_CAPACITY = 10;
+
     public Showtime(){}
 
     @Id
@@ -31,13 +36,13 @@ public class Showtime {
     private String time;
 
     @NotNull
-    private int silverSeatsAvailable = 40;
+    private int silverSeatsAvailable = SILVER_CAPACITY;
 
     @NotNull
-    private int goldSeatsAvailable = 20;
+    private int goldSeatsAvailable = GOLD_CAPACITY;
 
     @NotNull
-    private int platinumSeatsAvailable = 10;
+    private int platinumSeatsAvailable = PLATINUM_CAPACITY;
 
     @NotNull
     private double silverPrice = 140.0;
@@ -48,6 +53,10 @@ public class Showtime {
     @NotNull
     private double platinumPrice = 210.0;
 
+    // Set when the show is called off; a cancelled show takes no more bookings
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean cancelled;
+
     public Long getId() {
         return id;
     }
@@ -136,4 +145,12 @@ public class Showtime {
     public void setPlatinumSeatsAvailable(int platinumSeatsAvailable) {
         this.platinumSeatsAvailable = platinumSeatsAvailable;
     }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
 }
@@ -0,0 +1,30 @@
+package com.movieticketbooking.movieflix.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A geohash cell whose theatres were last fetched from Places at searchedAt
+@Entity
+@Table(name = "theatre_search_areas")
+public class TheatreSearchArea {
+
+    @Id
+    @Column(length = 12)
+    private String cell;
+
+    @Column(name = "searched_at", nullable = false)
+    private LocalDateTime searchedAt;
+
+    public TheatreSearchArea() {
+    }
+
+    public TheatreSearchArea(String cell, LocalDateTime searchedAt) {
+        this.cell = cell;
+        this.searchedAt = searchedAt;
+    }
+
+    public String getCell() { return cell; }
+    public void setCell(String cell) { this.cell = cell; }
+    public LocalDateTime getSearchedAt() { return searchedAt; }
+    public void setSearchedAt(LocalDateTime searchedAt) { this.searchedAt = searchedAt; }
+}
@@ -4,11 +4,13 @@ package com.movieticketbooking.movieflix.repository;
 import com.movieticketbooking.movieflix.models.BookedSeat;
 import com.movieticketbooking.movieflix.models.Booking;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -30,4 +32,13 @@ public interface BookedSeatRepository extends JpaRepository<BookedSeat, Long> {
             @Param("date") LocalDate date);
 
     void deleteAll(Iterable<? extends BookedSeat> entities);
+
+    // Rows of [SeatCategory, count] for the seats held by the given bookings
+    @Query("SELECT bs.category, COUNT(bs) FROM BookedSeat bs " +
+            "WHERE bs.booking.id IN :bookingIds GROUP BY bs.category")
+    List<Object[]> countByCategoryForBookings(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Modifying
+    @Query("DELETE FROM BookedSeat bs WHERE bs.booking.id IN :bookingIds")
+    int deleteByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
 }
\ No newline at end of file
@@ -2,7 +2,9 @@ package com.movieticketbooking.movieflix.repository;
 
 import com.movieticketbooking.movieflix.dto.MonthlyProfit;
 import com.movieticketbooking.movieflix.models.Booking;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,6 +12,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +20,53 @@ import java.util.Optional;
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     Optional<Booking> findByBookingReference(String bookingReference);
 
+    @Query("SELECT b.bookingReference FROM Booking b WHERE b.bookingReference IN :references")
+    List<String> findExistingReferences(@Param("references") Collection<String> references);
+
+    // Locked until the bulk cancellation commits. A customer cancelling the same booking blocks on
+    // cancelIfActive and then finds it cancelled; if the customer got there first, the row no
+    // longer matches here. New bookings are kept out by the showtime's cancelled flag, which is
+    // set first and checked when seats are reserved
+    @Query(value = "SELECT id FROM bookings " +
+            "WHERE showtime_id = :showtimeId AND payment_status <> 'CANCELLED' " +
+            "ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockActiveIdsByShowtime(@Param("showtimeId") Long showtimeId);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.paymentStatus = 'CANCELLED' WHERE b.id IN :ids")
+    int markCancelled(@Param("ids") Collection<Long> ids);
+
+    // 1 for the one caller that actually cancels the booking, 0 for any other
+    @Modifying
+    @Query("UPDATE Booking b SET b.paymentStatus = 'CANCELLED' WHERE b.id = :id AND b.paymentStatus <> 'CANCELLED'")
+    int cancelIfActive(@Param("id") Long id);
+
     @Query("SELECT b FROM Booking b WHERE b.user.id = :userId ORDER BY b.bookingTime DESC")
     List<Booking> findByUserId(Long userId);
 
+    // Id-ordered batches of all bookings, for rebuilding the booking views
+    @Query("SELECT b.id FROM Booking b WHERE b.id > :afterId ORDER BY b.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.id > :afterId " +
+            "AND NOT EXISTS (SELECT 1 FROM BookingView v WHERE v.bookingId = b.id) ORDER BY b.id")
+    List<Long> findIdsWithoutViewAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // The user's bookings whose view has not been written yet, normally none; keyset-paged like the history
+    @Query("SELECT b.id FROM Booking b WHERE b.user.id = :userId " +
+            "AND NOT EXISTS (SELECT 1 FROM BookingView v WHERE v.bookingId = b.id) " +
+            "ORDER BY b.bookingTime DESC, b.id DESC")
+    List<Long> findIdsWithoutViewByUser(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.user.id = :userId " +
+            "AND (b.bookingTime < :bookingTime OR (b.bookingTime = :bookingTime AND b.id < :bookingId)) " +
+            "AND NOT EXISTS (SELECT 1 FROM BookingView v WHERE v.bookingId = b.id) " +
+            "ORDER BY b.bookingTime DESC, b.id DESC")
+    List<Long> findIdsWithoutViewByUserBefore(@Param("userId") Long userId,
+                                              @Param("bookingTime") LocalDateTime bookingTime,
+                                              @Param("bookingId") Long bookingId,
+                                              Limit limit);
+
     @Query("SELECT b FROM Booking b " +
             "WHERE LOWER(b.user.email) LIKE LOWER(:search) OR " +
             "LOWER(b.user.firstName) LIKE LOWER(:search) OR " +
@@ -0,0 +1,30 @@
+package com.movieticketbooking.movieflix.repository;
+
+import com.movieticketbooking.movieflix.models.BookingView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookingViewRepository extends JpaRepository<BookingView, String> {
+    Optional<BookingView> findByBookingId(Long bookingId);
+
+    // Booking history, newest first, keyset-paged on (bookingTime, bookingId)
+    @Query("SELECT v FROM BookingView v WHERE v.userId = :userId ORDER BY v.bookingTime DESC, v.bookingId DESC")
+    List<BookingView> findHistory(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT v FROM BookingView v " +
+            "WHERE v.userId = :userId " +
+            "AND (v.bookingTime < :bookingTime OR (v.bookingTime = :bookingTime AND v.bookingId < :bookingId)) " +
+            "ORDER BY v.bookingTime DESC, v.bookingId DESC")
+    List<BookingView> findHistoryBefore(@Param("userId") Long userId,
+                                        @Param("bookingTime") LocalDateTime bookingTime,
+                                        @Param("bookingId") Long bookingId,
+                                        Limit limit);
+}
@@ -0,0 +1,13 @@
+package com.movieticketbooking.movieflix.repository;
+
+import com.movieticketbooking.movieflix.models.ConcessionStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ConcessionStockRepository extends JpaRepository<ConcessionStock, Long> {
+    List<ConcessionStock> findByTheatreIdAndShowDateAndShowTime(String theatreId, LocalDate showDate, String showTime);
+}
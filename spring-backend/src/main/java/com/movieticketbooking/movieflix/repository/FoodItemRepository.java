@@ -4,9 +4,13 @@ import com.movieticketbooking.movieflix.models.FoodItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FoodItemRepository extends JpaRepository<FoodItem, Long> {
     Optional<FoodItem> findByName(String name);
+    List<FoodItem> findByNameIn(Collection<String> names);
+    List<FoodItem> findByMenuCategoryIsNotNullAndIsAvailableTrue();
 }
\ No newline at end of file
@@ -3,11 +3,18 @@ package com.movieticketbooking.movieflix.repository;
 import com.movieticketbooking.movieflix.models.Booking;
 import com.movieticketbooking.movieflix.models.FoodOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface FoodOrderRepository extends JpaRepository<FoodOrder, Long> {
     List<FoodOrder> findByBookingId(Long bookingId);
     List<FoodOrder> findByBooking(Booking booking);
+
+    // Ordered quantity per food item over the given bookings, as (food item id, quantity) rows
+    @Query("SELECT f.foodItem.id, SUM(f.quantity) FROM FoodOrder f WHERE f.booking.id IN :bookingIds GROUP BY f.foodItem.id")
+    List<Object[]> sumQuantityByFoodItem(@Param("bookingIds") Collection<Long> bookingIds);
 }
\ No newline at end of file
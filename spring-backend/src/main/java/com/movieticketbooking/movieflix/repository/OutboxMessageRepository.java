@@ -0,0 +1,25 @@
+package com.movieticketbooking.movieflix.repository;
+
+import com.movieticketbooking.movieflix.models.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Due messages, including PROCESSING ones whose lease ran out because a worker died.
+    // Rows locked by another poller are skipped, so pollers never hand out the same message.
+    @Query(value = "SELECT * FROM outbox_messages " +
+            "WHERE status IN ('PENDING', 'PROCESSING') AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(OutboxMessage.Status status);
+}
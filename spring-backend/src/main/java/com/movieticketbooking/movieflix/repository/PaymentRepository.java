@@ -3,9 +3,44 @@ package com.movieticketbooking.movieflix.repository;
 
 import com.movieticketbooking.movieflix.models.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Payment findByBookingId(Long bookingId);
+
+    List<Payment> findByTransactionIdIn(Collection<String> transactionIds);
+
+    // Next page of payments waiting for a refund, in id order. Skips payments whose refund is
+    // already with the gateway, given up on, backing off, or being submitted by a live worker.
+    @Query(value = "SELECT p.* FROM payments p " +
+            "WHERE p.status = 'REFUND_PENDING' AND p.id > :afterId " +
+            "AND NOT EXISTS (SELECT 1 FROM refunds r WHERE r.payment_id = p.id AND (" +
+            "r.status IN ('SUBMITTED', 'PROCESSED', 'FAILED') " +
+            "OR (r.status = 'SUBMITTING' AND r.updated_at > :staleBefore) " +
+            "OR (r.status = 'PENDING' AND r.next_attempt_at > :now))) " +
+            "ORDER BY p.id " +
+            "LIMIT :limit " +
+            "FOR UPDATE OF p SKIP LOCKED", nativeQuery = true)
+    List<Payment> lockRefundable(@Param("afterId") long afterId,
+                                 @Param("now") LocalDateTime now,
+                                 @Param("staleBefore") LocalDateTime staleBefore,
+                                 @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status WHERE p.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") Payment.PaymentStatus status);
+
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to WHERE p.booking.id IN :bookingIds AND p.status = :from")
+    int transitionForBookings(@Param("bookingIds") Collection<Long> bookingIds,
+                              @Param("from") Payment.PaymentStatus from,
+                              @Param("to") Payment.PaymentStatus to);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.movieticketbooking.movieflix.repository;
+
+import com.movieticketbooking.movieflix.models.Refund;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RefundRepository extends JpaRepository<Refund, Long> {
+
+    List<Refund> findByPaymentIdIn(Collection<Long> paymentIds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Refund r SET r.status = com.movieticketbooking.movieflix.models.Refund.Status.PROCESSED, " +
+            "r.updatedAt = :now WHERE r.razorpayPaymentId IN :razorpayPaymentIds")
+    int markProcessed(@Param("razorpayPaymentIds") Collection<String> razorpayPaymentIds, @Param("now") LocalDateTime now);
+
+    // Extends a claim just before its refund is sent; 0 when another worker has re-claimed it since
+    @Transactional
+    @Modifying
+    @Query("UPDATE Refund r SET r.updatedAt = :now WHERE r.id = :id " +
+            "AND r.status = com.movieticketbooking.movieflix.models.Refund.Status.SUBMITTING AND r.attempts = :attempts")
+    int renewLease(@Param("id") Long id, @Param("attempts") int attempts, @Param("now") LocalDateTime now);
+
+    long countByStatus(Refund.Status status);
+}
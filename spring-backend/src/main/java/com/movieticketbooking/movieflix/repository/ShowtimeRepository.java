@@ -1,9 +1,14 @@
 package com.movieticketbooking.movieflix.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.movieticketbooking.movieflix.models.Showtime;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
@@ -14,5 +19,81 @@ public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
             String time
     );
 
+    List<Showtime> findByMovieIdAndTheatreIdAndDate(Long movieId, String theatreId, LocalDate date);
+
+    List<Showtime> findByTheatreIdAndDate(String theatreId, LocalDate date);
+
+    @Query("SELECT DISTINCT s.movieId FROM Showtime s WHERE s.date >= :since")
+    List<Long> findMovieIdsShowingSince(@Param("since") LocalDate since);
+
+    boolean existsByMovieIdAndTheatreIdAndDateAndTimeAndCancelledTrue(
+            Long movieId,
+            String theatreId,
+            LocalDate date,
+            String time
+    );
+
+    // Takes seats off the category counters only if every category still has enough left
+    // and the show has not been cancelled
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Showtime s SET " +
+            "s.silverSeatsAvailable = s.silverSeatsAvailable - :silver, " +
+            "s.goldSeatsAvailable = s.goldSeatsAvailable - :gold, " +
+            "s.platinumSeatsAvailable = s.platinumSeatsAvailable - :platinum " +
+            "WHERE s.id = :id " +
+            "AND s.cancelled = false " +
+            "AND s.silverSeatsAvailable >= :silver " +
+            "AND s.goldSeatsAvailable >= :gold " +
+            "AND s.platinumSeatsAvailable >= :platinum")
+    int reserveSeats(@Param("id") Long id,
+                     @Param("silver") int silver,
+                     @Param("gold") int gold,
+                     @Param("platinum") int platinum);
+
+    // Capped at capacity, so releasing the same seats twice cannot make the show oversell
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Showtime s SET " +
+            "s.silverSeatsAvailable = LEAST(s.silverSeatsAvailable + :silver, " + Showtime.SILVER_CAPACITY + "), " +
+            "s.goldSeatsAvailable = LEAST(s.goldSeatsAvailable + :gold, " + Showtime.GOLD_CAPACITY + "), " +
+            "s.platinumSeatsAvailable = LEAST(s.platinumSeatsAvailable + :platinum, " + Showtime.PLATINUM_CAPACITY + ") " +
+            "WHERE s.id = :id")
+    int releaseSeats(@Param("id") Long id,
+                     @Param("silver") int silver,
+                     @Param("gold") int gold,
+                     @Param("platinum") int platinum);
+
+    // Row-locks the showtime, so a booking reserving its seats either commits first or sees the flag
+    @Modifying
+    @Query("UPDATE Showtime s SET s.cancelled = true WHERE s.id = :id")
+    int markCancelled(@Param("id") Long id);
+
+    // Id-ordered batches of all showtimes, for recounting the seat counters
+    @Query("SELECT s.id FROM Showtime s WHERE s.id > :afterId ORDER BY s.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Held until the transaction ends, so no booking or cancellation can change the show's counters meanwhile
+    @Query(value = "SELECT id FROM showtimes WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+
+    // Recomputes one show's counters from its booked seats; used to repair rows
+    // written before the counters were maintained. Run with the row locked.
+    @Modifying
+    @Query(value = "UPDATE showtimes SET " +
+            "silver_seats_available = :silverCapacity - c.silver, " +
+            "gold_seats_available = :goldCapacity - c.gold, " +
+            "platinum_seats_available = :platinumCapacity - c.platinum " +
+            "FROM (" +
+            "  SELECT COUNT(*) FILTER (WHERE bs.category = 'SILVER') AS silver, " +
+            "    COUNT(*) FILTER (WHERE bs.category = 'GOLD') AS gold, " +
+            "    COUNT(*) FILTER (WHERE bs.category = 'PLATINUM') AS platinum " +
+            "  FROM booked_seats bs JOIN bookings b ON b.id = bs.booking_id " +
+            "  WHERE b.showtime_id = :id" +
+            ") c " +
+            "WHERE showtimes.id = :id",
+            nativeQuery = true)
+    int reconcileSeatCounters(@Param("id") Long id,
+                              @Param("silverCapacity") int silverCapacity,
+                              @Param("goldCapacity") int goldCapacity,
+                              @Param("platinumCapacity") int platinumCapacity);
 
 }
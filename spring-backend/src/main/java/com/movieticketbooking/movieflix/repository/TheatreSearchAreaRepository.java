@@ -0,0 +1,9 @@
+package com.movieticketbooking.movieflix.repository;
+
+import com.movieticketbooking.movieflix.models.TheatreSearchArea;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TheatreSearchAreaRepository extends JpaRepository<TheatreSearchArea, String> {
+}
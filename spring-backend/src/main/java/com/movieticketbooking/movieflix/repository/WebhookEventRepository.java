@@ -0,0 +1,45 @@
+package com.movieticketbooking.movieflix.repository;
+
+import com.movieticketbooking.movieflix.models.WebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, String> {
+
+    // Returns 0 when the event was already stored (Razorpay redelivers until it gets a 2xx)
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO webhook_events " +
+            "(event_id, event_type, payload, status, attempts, next_attempt_at, received_at) " +
+            "VALUES (:eventId, :eventType, :payload, 'PENDING', 0, :now, :now) " +
+            "ON CONFLICT (event_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId,
+                       @Param("eventType") String eventType,
+                       @Param("payload") String payload,
+                       @Param("now") LocalDateTime now);
+
+    // Due events, including PROCESSING ones whose lease ran out; rows locked by another poller are skipped
+    @Query(value = "SELECT * FROM webhook_events " +
+            "WHERE status IN ('PENDING', 'PROCESSING') AND next_attempt_at <= :now " +
+            "ORDER BY received_at " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<WebhookEvent> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.movieticketbooking.movieflix.models.WebhookEvent.Status.PROCESSED, e.processedAt = :now, e.lastError = null " +
+            "WHERE e.eventId IN :eventIds")
+    int markProcessed(@Param("eventIds") Collection<String> eventIds, @Param("now") LocalDateTime now);
+
+    long countByStatus(WebhookEvent.Status status);
+}
@@ -0,0 +1,178 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.BookingViewDocument;
+import com.movieticketbooking.movieflix.models.BookingView;
+import com.movieticketbooking.movieflix.repository.BookingRepository;
+import com.movieticketbooking.movieflix.repository.BookingViewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A user's booking history, a page at a time.
+ *
+ * Each page is one query over the booking read model (see
+ * {@link BookingViewService}), paged by keyset on (booking time, id), so later
+ * pages cost the same as the first; the documents already carry the movie
+ * details. Show times are stored as text ("7:30 PM"); a theatre only uses a
+ * handful of them, so each distinct value is parsed once and remembered.
+ *
+ * A booking whose view has not been written yet, because its outbox message
+ * has not been drained or its projection keeps failing, is listed from the
+ * source tables without movie details rather than left out, and a background
+ * rebuild of the missing views is started. Such drafts are found with the same
+ * keyset as the views and merged in order, so a page never holds more than
+ * its size and no request waits on the movie or theatre lookups.
+ *
+ * The cursor of the next page is the last booking's time and id, opaque to
+ * clients.
+ */
+@Service
+public class BookingHistoryService {
+
+    private static final DateTimeFormatter SHOW_TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a", Locale.US);
+    private static final int MAX_PARSED_TIMES = 1_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingHistoryService.class);
+
+    private final BookingRepository bookingRepository;
+    private final BookingViewRepository bookingViewRepository;
+    private final BookingViewService bookingViewService;
+    private final Clock clock;
+    private final ConcurrentMap<String, LocalTime> parsedTimes = new ConcurrentHashMap<>();
+
+    @Value("${bookings.history.page-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${bookings.history.max-page-size:200}")
+    private int maxPageSize = 200;
+
+    public BookingHistoryService(BookingRepository bookingRepository, BookingViewRepository bookingViewRepository,
+                                 BookingViewService bookingViewService) {
+        this(bookingRepository, bookingViewRepository, bookingViewService, Clock.systemDefaultZone());
+    }
+
+    BookingHistoryService(BookingRepository bookingRepository, BookingViewRepository bookingViewRepository,
+                          BookingViewService bookingViewService, Clock clock) {
+        this.bookingRepository = bookingRepository;
+        this.bookingViewRepository = bookingViewRepository;
+        this.bookingViewService = bookingViewService;
+        this.clock = clock;
+    }
+
+    public record Page(List<Map<String, Object>> bookings, String nextCursor) {}
+
+    /**
+     * The page of bookings after the cursor (the first page when it is null).
+     * Throws IllegalArgumentException for a cursor this service did not issue.
+     */
+    public Page getPage(Long userId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        // One extra row tells whether there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+        List<BookingView> rows;
+        List<Long> missing;
+        if (cursor == null || cursor.isBlank()) {
+            rows = bookingViewRepository.findHistory(userId, limit);
+            missing = bookingRepository.findIdsWithoutViewByUser(userId, limit);
+        } else {
+            String[] parts = cursor.split("_", 2);
+            LocalDateTime bookingTime;
+            Long bookingId;
+            try {
+                bookingTime = LocalDateTime.parse(parts[0]);
+                bookingId = Long.valueOf(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            rows = bookingViewRepository.findHistoryBefore(userId, bookingTime, bookingId, limit);
+            missing = bookingRepository.findIdsWithoutViewByUserBefore(userId, bookingTime, bookingId, limit);
+        }
+
+        List<BookingViewDocument> documents = new ArrayList<>(rows.size() + missing.size());
+        for (BookingView row : rows) {
+            documents.add(bookingViewService.read(row));
+        }
+        if (!missing.isEmpty()) {
+            logger.warn("Listing {} bookings of user {} without a booking view", missing.size(), userId);
+            bookingViewService.rebuild(true);
+            missing.forEach(id -> bookingViewService.draft(id).ifPresent(documents::add));
+            documents.sort(Comparator.comparing(BookingViewDocument::bookingTime)
+                    .thenComparing(BookingViewDocument::bookingId).reversed());
+        }
+
+        boolean hasMore = documents.size() > pageSize;
+        List<BookingViewDocument> page = hasMore ? documents.subList(0, pageSize) : documents;
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<Map<String, Object>> bookings = new ArrayList<>(page.size());
+        for (BookingViewDocument document : page) {
+            bookings.add(toResponse(document, now));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            BookingViewDocument last = page.get(page.size() - 1);
+            nextCursor = last.bookingTime() + "_" + last.bookingId();
+        }
+        return new Page(bookings, nextCursor);
+    }
+
+    private Map<String, Object> toResponse(BookingViewDocument view, LocalDateTime now) {
+        Map<String, Object> movieDetails = view.movie();
+        LocalDateTime showDateTime = view.showDate().atTime(parseShowTime(view.showTime()));
+        boolean isExpired = showDateTime.isBefore(now);
+        long hoursRemaining = ChronoUnit.HOURS.between(now, showDateTime);
+        long minutesRemaining = ChronoUnit.MINUTES.between(now, showDateTime) % 60;
+        String timeStatus = isExpired ? "Expired" :
+                (hoursRemaining > 0 ? hoursRemaining + "h " + minutesRemaining + "m remaining" :
+                        minutesRemaining + "m remaining");
+
+        Map<String, Object> booking = new HashMap<>();
+        booking.put("id", view.bookingId());
+        booking.put("reference", view.reference());
+        booking.put("movieTitle", movieDetails.get("title"));
+        Object posterPath = movieDetails.get("poster_path");
+        booking.put("posterPath", posterPath != null ? "https://image.tmdb.org/t/p/w500" + posterPath : null);
+        booking.put("showtime", view.showTime()); // Keep original format
+        booking.put("date", view.showDate().toString());
+        booking.put("totalAmount", view.totalAmount());
+        booking.put("status", view.paymentStatus());
+        booking.put("rating", movieDetails.getOrDefault("vote_average", "N/A"));
+        booking.put("genres", ((List<Map<String, Object>>) movieDetails.getOrDefault("genres", List.of())).stream()
+                .map(genre -> (String) genre.get("name"))
+                .toList());
+        booking.put("isExpired", isExpired);
+        booking.put("timeStatus", timeStatus);
+        booking.put("showDateTime", showDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        return booking;
+    }
+
+    private LocalTime parseShowTime(String time) {
+        LocalTime parsed = parsedTimes.get(time);
+        if (parsed == null) {
+            parsed = LocalTime.parse(time, SHOW_TIME_FORMAT);
+            if (parsedTimes.size() < MAX_PARSED_TIMES) {
+                parsedTimes.put(time, parsed);
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,288 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieticketbooking.movieflix.dto.BookingViewDocument;
+import com.movieticketbooking.movieflix.dto.Place;
+import com.movieticketbooking.movieflix.models.Booking;
+import com.movieticketbooking.movieflix.models.BookingView;
+import com.movieticketbooking.movieflix.models.FoodItem;
+import com.movieticketbooking.movieflix.models.FoodOrder;
+import com.movieticketbooking.movieflix.models.OutboxMessage;
+import com.movieticketbooking.movieflix.models.Showtime;
+import com.movieticketbooking.movieflix.repository.BookingRepository;
+import com.movieticketbooking.movieflix.repository.BookingViewRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Read model behind the booking detail, ticket and history views.
+ *
+ * Each booking has one booking_views row, keyed by its reference, holding a
+ * JSON {@link BookingViewDocument} with everything those views show: the
+ * booking, its show, seats and food lines, and the movie and theatre details.
+ * Serving a view is then one primary-key lookup instead of reading six tables
+ * and asking the catalog and the theatre registry.
+ *
+ * Rows are written by the BOOKING_VIEW outbox handler, which payment and
+ * cancellation enqueue in the same transaction as the change, so a view
+ * follows its booking shortly after every commit. A projection always reads
+ * the current state of the source tables, and a row is only replaced by one
+ * projected later, so retries and reordering cannot bring back an old state.
+ * A booking whose row is missing is projected on first read.
+ *
+ * The whole model can be regenerated from the source tables; on startup,
+ * bookings that have no row yet are projected in the background.
+ */
+@Service
+public class BookingViewService implements OutboxHandler {
+
+    public static final String TYPE = "BOOKING_VIEW";
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingViewService.class);
+
+    private static final String UPSERT = "INSERT INTO booking_views " +
+            "(booking_reference, booking_id, user_id, booking_time, payment_status, document, projected_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (booking_reference) DO UPDATE SET " +
+            "booking_id = EXCLUDED.booking_id, user_id = EXCLUDED.user_id, booking_time = EXCLUDED.booking_time, " +
+            "payment_status = EXCLUDED.payment_status, document = EXCLUDED.document, projected_at = EXCLUDED.projected_at " +
+            "WHERE booking_views.projected_at <= EXCLUDED.projected_at";
+
+    private final BookingRepository bookingRepository;
+    private final BookingViewRepository bookingViewRepository;
+    private final FoodItemCache foodItemCache;
+    private final MovieCatalogService movieCatalogService;
+    private final TheatreRegistry theatreRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService rebuilder = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Value("${booking-views.rebuild-batch-size:200}")
+    private int rebuildBatchSize = 200;
+
+    public BookingViewService(BookingRepository bookingRepository,
+                              BookingViewRepository bookingViewRepository,
+                              FoodItemCache foodItemCache,
+                              MovieCatalogService movieCatalogService,
+                              TheatreRegistry theatreRegistry,
+                              JdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.bookingViewRepository = bookingViewRepository;
+        this.foodItemCache = foodItemCache;
+        this.movieCatalogService = movieCatalogService;
+        this.theatreRegistry = theatreRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // The booking as read from the source tables; food lines still carry item ids only
+    private record Source(BookingViewDocument document, List<FoodLine> foodLines) {}
+
+    private record FoodLine(Long foodItemId, int quantity, double price) {}
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        if (project(message.getAggregateId()).isEmpty()) {
+            logger.info("Skipping booking view {}: booking not found", message.getAggregateId());
+        }
+    }
+
+    public Optional<BookingViewDocument> find(String reference) {
+        Optional<BookingView> view = bookingViewRepository.findById(reference);
+        if (view.isPresent()) {
+            return Optional.of(read(view.get()));
+        }
+        return bookingRepository.findByBookingReference(reference).flatMap(booking -> project(booking.getId()));
+    }
+
+    public Optional<BookingViewDocument> findByBookingId(Long bookingId) {
+        return bookingViewRepository.findByBookingId(bookingId)
+                .map(this::read)
+                .or(() -> project(bookingId));
+    }
+
+    public BookingViewDocument read(BookingView view) {
+        try {
+            return objectMapper.readValue(view.getDocument(), BookingViewDocument.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable view of booking " + view.getBookingReference(), e);
+        }
+    }
+
+    /**
+     * Rebuilds the view of one booking from the source tables. Empty when the
+     * booking does not exist; throws when the movie or theatre cannot be
+     * looked up, so the outbox tries again later.
+     */
+    public Optional<BookingViewDocument> project(Long bookingId) {
+        LocalDateTime projectedAt = LocalDateTime.now();
+        Source source = readSource(bookingId);
+        if (source == null) {
+            return Optional.empty();
+        }
+
+        BookingViewDocument partial = source.document();
+        Map<String, Object> movie = movieCatalogService.getDetails(partial.movieId());
+        if (movie == null) {
+            throw new IllegalStateException("Movie " + partial.movieId() + " is not available yet");
+        }
+        Place theatre = theatreRegistry.get(partial.theatreId());
+        if (theatre == null) {
+            throw new IllegalStateException("Theatre " + partial.theatreId() + " is not available yet");
+        }
+        BookingViewDocument document = complete(source, movie, theatre);
+        save(document, projectedAt);
+        return Optional.of(document);
+    }
+
+    /**
+     * The booking as it stands, for a booking whose view cannot be projected
+     * yet: movie details are left empty and the theatre unset. Nothing is
+     * stored.
+     */
+    public Optional<BookingViewDocument> draft(Long bookingId) {
+        return Optional.ofNullable(readSource(bookingId)).map(source -> complete(source, Map.of(), null));
+    }
+
+    private Source readSource(Long bookingId) {
+        return readOnlyTransaction.execute(status ->
+                bookingRepository.findById(bookingId).map(this::toSource).orElse(null));
+    }
+
+    private BookingViewDocument complete(Source source, Map<String, Object> movie, Place theatre) {
+        BookingViewDocument partial = source.document();
+        Map<Long, FoodItem> foodItems = source.foodLines().isEmpty() ? Map.of() : foodItemCache.findByIds(
+                source.foodLines().stream().map(FoodLine::foodItemId).collect(Collectors.toSet()));
+        List<BookingViewDocument.Food> food = source.foodLines().stream()
+                .map(line -> {
+                    FoodItem item = foodItems.get(line.foodItemId());
+                    return new BookingViewDocument.Food(item != null ? item.getName() : "Unknown Item",
+                            item != null ? item.getImageUrl() : null, line.quantity(), line.price());
+                })
+                .toList();
+
+        return new BookingViewDocument(partial.bookingId(), partial.reference(),
+                partial.userId(), partial.paymentStatus(), partial.paymentMethod(), partial.totalAmount(),
+                partial.bookingTime(), partial.movieId(), partial.theatreId(), partial.showDate(),
+                partial.showTime(), partial.seats(), food, movie, theatre);
+    }
+
+    // Starts regenerating every view, or only missing ones; false if a rebuild is already running
+    public boolean rebuild(boolean missingOnly) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuilder.execute(() -> {
+            try {
+                runRebuild(missingOnly);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        rebuild(true);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        rebuilder.shutdown();
+        if (!rebuilder.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Booking view rebuild did not finish before shutdown");
+            rebuilder.shutdownNow();
+        }
+    }
+
+    private void runRebuild(boolean missingOnly) {
+        long afterId = Long.MIN_VALUE;
+        int projected = 0, failed = 0;
+        while (!rebuilder.isShutdown()) {
+            List<Long> ids = missingOnly
+                    ? bookingRepository.findIdsWithoutViewAfter(afterId, Limit.of(rebuildBatchSize))
+                    : bookingRepository.findIdsAfter(afterId, Limit.of(rebuildBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                try {
+                    project(id);
+                    projected++;
+                } catch (Exception e) {
+                    failed++;
+                    logger.warn("Could not project booking {}: {}", id, e.getMessage());
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (projected > 0 || failed > 0) {
+            logger.info("Booking view rebuild projected {} bookings, {} failed", projected, failed);
+        }
+    }
+
+    private Source toSource(Booking booking) {
+        Showtime showtime = booking.getShowtime();
+        List<BookingViewDocument.Seat> seats = booking.getSeats() == null ? List.of() : booking.getSeats().stream()
+                .map(seat -> new BookingViewDocument.Seat(seat.getSeatNumber(),
+                        seat.getCategory() != null ? seat.getCategory().name() : null, seat.getPrice()))
+                .toList();
+        List<FoodLine> foodLines = booking.getFoodOrders() == null ? List.of() : booking.getFoodOrders().stream()
+                .map(BookingViewService::toFoodLine)
+                .toList();
+        BookingViewDocument document = new BookingViewDocument(booking.getId(), booking.getBookingReference(),
+                (long) booking.getUser().getUserId(), booking.getPaymentStatus(),
+                booking.getPayment() != null ? booking.getPayment().getMethod().toString() : "UNKNOWN",
+                booking.getTotalAmount(), booking.getBookingTime(), showtime.getMovieId(), showtime.getTheatreId(),
+                showtime.getDate(), showtime.getTime(), seats, List.of(), null, null);
+        return new Source(document, foodLines);
+    }
+
+    private static FoodLine toFoodLine(FoodOrder order) {
+        return new FoodLine(order.getFoodItem().getId(), order.getQuantity(),
+                order.getPriceAtOrder() != null ? order.getPriceAtOrder() : 0);
+    }
+
+    private void save(BookingViewDocument document, LocalDateTime projectedAt) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(document);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise view of booking " + document.reference(), e);
+        }
+        jdbcTemplate.update(UPSERT, document.reference(), document.bookingId(), document.userId(),
+                document.bookingTime(), document.paymentStatus(), json, projectedAt);
+    }
+}
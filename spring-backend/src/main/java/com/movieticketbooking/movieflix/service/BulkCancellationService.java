@@ -0,0 +1,178 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movieticketbooking.movieflix.dto.ShowtimeKey;
+import com.movieticketbooking.movieflix.models.BookedSeat;
+import com.movieticketbooking.movieflix.models.Payment;
+import com.movieticketbooking.movieflix.models.Showtime;
+import com.movieticketbooking.movieflix.repository.BookedSeatRepository;
+import com.movieticketbooking.movieflix.repository.BookingRepository;
+import com.movieticketbooking.movieflix.repository.PaymentRepository;
+import com.movieticketbooking.movieflix.repository.ShowtimeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels every booking of a showtime, or of all showtimes at a theatre on a
+ * day, when a show cannot go ahead.
+ *
+ * Each showtime is cancelled in one transaction of set-based statements: flag
+ * the showtime as cancelled, so it takes no new bookings and its open
+ * checkouts are dropped, lock the active bookings, mark them cancelled, move
+ * their successful payments to
+ * REFUND_PENDING, delete their seats and give the seats and snacks back to
+ * the counters. The customer emails go into the outbox in the same transaction and
+ * the refund engine is started once it commits, so neither slows the
+ * cancellation down. Jobs run in the background and report progress by id.
+ */
+@Service
+public class BulkCancellationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkCancellationService.class);
+
+    private final ShowtimeRepository showtimeRepository;
+    private final BookingRepository bookingRepository;
+    private final BookedSeatRepository bookedSeatRepository;
+    private final PaymentRepository paymentRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatHoldService seatHoldService;
+    private final ConcessionStockService concessionStockService;
+    private final OutboxService outboxService;
+    private final RefundService refundService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Cache<String, CancellationJob> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofDays(1))
+            .maximumSize(1_000)
+            .build();
+
+    public BulkCancellationService(ShowtimeRepository showtimeRepository,
+                                   BookingRepository bookingRepository,
+                                   BookedSeatRepository bookedSeatRepository,
+                                   PaymentRepository paymentRepository,
+                                   SeatInventoryService seatInventoryService,
+                                   SeatHoldService seatHoldService,
+                                   ConcessionStockService concessionStockService,
+                                   OutboxService outboxService,
+                                   RefundService refundService,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry) {
+        this.showtimeRepository = showtimeRepository;
+        this.bookingRepository = bookingRepository;
+        this.bookedSeatRepository = bookedSeatRepository;
+        this.paymentRepository = paymentRepository;
+        this.seatInventoryService = seatInventoryService;
+        this.seatHoldService = seatHoldService;
+        this.concessionStockService = concessionStockService;
+        this.outboxService = outboxService;
+        this.refundService = refundService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private record ShowtimeResult(int bookings, int seats, int refunds) {}
+
+    // Returns empty when the showtime does not exist
+    public Optional<CancellationJob> cancelShowtime(Long showtimeId) {
+        return showtimeRepository.findById(showtimeId)
+                .map(showtime -> submit("showtime " + showtimeId, List.of(showtime)));
+    }
+
+    public CancellationJob cancelTheatreDay(String theatreId, LocalDate date) {
+        return submit("theatre " + theatreId + " on " + date,
+                showtimeRepository.findByTheatreIdAndDate(theatreId, date));
+    }
+
+    public Optional<CancellationJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    private CancellationJob submit(String scope, List<Showtime> showtimes) {
+        CancellationJob job = new CancellationJob(UUID.randomUUID().toString(), scope);
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job, showtimes));
+        return job;
+    }
+
+    private void run(CancellationJob job, List<Showtime> showtimes) {
+        logger.info("Bulk cancellation {} started for {} ({} showtimes)", job.getId(), job.getScope(), showtimes.size());
+        job.start(showtimes.size());
+        for (Showtime showtime : showtimes) {
+            try {
+                ShowtimeResult result = transactionTemplate.execute(status -> cancelBookings(showtime));
+                job.showtimeDone(result.bookings(), result.seats(), result.refunds());
+                meterRegistry.counter("bookings.bulk_cancelled").increment(result.bookings());
+            } catch (Exception e) {
+                logger.error("Bulk cancellation {} failed for showtime {}: {}", job.getId(), showtime.getId(), e.getMessage(), e);
+                job.showtimeFailed(showtime.getId(), e.getMessage());
+            }
+        }
+        job.finish();
+        logger.info("Bulk cancellation {} finished: {}", job.getId(), job.toMap());
+    }
+
+    private ShowtimeResult cancelBookings(Showtime showtime) {
+        // First, so a booking reserving seats right now either commits before the lock below or fails
+        showtimeRepository.markCancelled(showtime.getId());
+        ShowtimeKey key = ShowtimeKey.of(showtime);
+        TransactionCallbacks.afterCommit(() -> {
+            seatInventoryService.markCancelled(key);
+            seatHoldService.releaseShow(key);
+            // Cheaper than listing every seat; the next read reloads the show from the database
+            seatInventoryService.evict(key);
+        });
+
+        List<Long> bookingIds = bookingRepository.lockActiveIdsByShowtime(showtime.getId());
+        if (bookingIds.isEmpty()) {
+            return new ShowtimeResult(0, 0, 0);
+        }
+
+        int silver = 0, gold = 0, platinum = 0;
+        for (Object[] row : bookedSeatRepository.countByCategoryForBookings(bookingIds)) {
+            int count = ((Number) row[1]).intValue();
+            switch ((BookedSeat.SeatCategory) row[0]) {
+                case SILVER -> silver = count;
+                case GOLD -> gold = count;
+                case PLATINUM -> platinum = count;
+            }
+        }
+
+        bookingRepository.markCancelled(bookingIds);
+        int refunds = paymentRepository.transitionForBookings(
+                bookingIds, Payment.PaymentStatus.SUCCESSFUL, Payment.PaymentStatus.REFUND_PENDING);
+        int seats = bookedSeatRepository.deleteByBookingIds(bookingIds);
+        showtimeRepository.releaseSeats(showtime.getId(), silver, gold, platinum);
+        concessionStockService.returnForBookingsAfterCommit(ConcessionStockService.Slot.of(key), bookingIds);
+
+        outboxService.enqueueAll(CancellationNotificationService.TYPE, bookingIds);
+        outboxService.enqueueAll(BookingViewService.TYPE, bookingIds);
+        if (refunds > 0) {
+            refundService.processAfterCommit();
+        }
+
+        return new ShowtimeResult(bookingIds.size(), seats, refunds);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Bulk cancellations did not finish before shutdown");
+        }
+    }
+}
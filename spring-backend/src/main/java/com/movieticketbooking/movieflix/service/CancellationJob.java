@@ -0,0 +1,82 @@
+package com.movieticketbooking.movieflix.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Progress of one bulk cancellation, updated by the worker and read by the admin endpoint
+public class CancellationJob {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, COMPLETED_WITH_ERRORS
+    }
+
+    private final String id;
+    private final String scope;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicInteger showtimesDone = new AtomicInteger();
+    private final AtomicInteger bookingsCancelled = new AtomicInteger();
+    private final AtomicInteger seatsReleased = new AtomicInteger();
+    private final AtomicInteger refundsQueued = new AtomicInteger();
+    private final AtomicInteger notificationsQueued = new AtomicInteger();
+    private final List<String> errors = new ArrayList<>();
+    private volatile int showtimesTotal;
+    private volatile State state = State.QUEUED;
+    private volatile LocalDateTime finishedAt;
+
+    CancellationJob(String id, String scope) {
+        this.id = id;
+        this.scope = scope;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    void start(int showtimes) {
+        this.showtimesTotal = showtimes;
+        this.state = State.RUNNING;
+    }
+
+    void showtimeDone(int bookings, int seats, int refunds) {
+        bookingsCancelled.addAndGet(bookings);
+        seatsReleased.addAndGet(seats);
+        refundsQueued.addAndGet(refunds);
+        notificationsQueued.addAndGet(bookings);
+        showtimesDone.incrementAndGet();
+    }
+
+    synchronized void showtimeFailed(Long showtimeId, String error) {
+        errors.add("showtime " + showtimeId + ": " + error);
+        showtimesDone.incrementAndGet();
+    }
+
+    synchronized void finish() {
+        this.finishedAt = LocalDateTime.now();
+        this.state = errors.isEmpty() ? State.COMPLETED : State.COMPLETED_WITH_ERRORS;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("jobId", id);
+        map.put("scope", scope);
+        map.put("state", state);
+        map.put("showtimesTotal", showtimesTotal);
+        map.put("showtimesDone", showtimesDone.get());
+        map.put("bookingsCancelled", bookingsCancelled.get());
+        map.put("seatsReleased", seatsReleased.get());
+        map.put("refundsQueued", refundsQueued.get());
+        map.put("notificationsQueued", notificationsQueued.get());
+        map.put("errors", List.copyOf(errors));
+        map.put("createdAt", createdAt.toString());
+        map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+        return map;
+    }
+}
@@ -0,0 +1,87 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.models.Booking;
+import com.movieticketbooking.movieflix.models.OutboxMessage;
+import com.movieticketbooking.movieflix.models.Payment;
+import com.movieticketbooking.movieflix.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tells a customer that their booking was cancelled by the theatre.
+ *
+ * Handler for CANCELLATION_EMAIL outbox messages written by bulk
+ * cancellations; the booking is read in a short read-only transaction and the
+ * mail is sent without holding a connection.
+ */
+@Service
+public class CancellationNotificationService implements OutboxHandler {
+
+    public static final String TYPE = "CANCELLATION_EMAIL";
+
+    private static final Logger logger = LoggerFactory.getLogger(CancellationNotificationService.class);
+
+    private final EmailService emailService;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CancellationNotificationService(EmailService emailService,
+                                           BookingRepository bookingRepository,
+                                           PlatformTransactionManager transactionManager) {
+        this.emailService = emailService;
+        this.bookingRepository = bookingRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    private record Notice(String email, String reference, String date, String time, Payment.PaymentStatus paymentStatus) {}
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        Notice notice = readOnlyTransaction.execute(status ->
+                bookingRepository.findById(message.getAggregateId()).map(this::toNotice).orElse(null));
+        if (notice == null) {
+            logger.info("Skipping cancellation email for booking {}: not found", message.getAggregateId());
+            return;
+        }
+
+        String content = "<p style='font-size: 16px; color: #555;'>We're sorry, the show you booked can no longer go ahead.</p>"
+                + "<p><strong>Booking:</strong> " + notice.reference() + "</p>"
+                + "<p><strong>Date:</strong> " + notice.date() + "</p>"
+                + "<p><strong>Time:</strong> " + notice.time() + "</p>"
+                + refundNote(notice.paymentStatus());
+
+        emailService.sendCancellationEmail(notice.email(), "Your MovieFlix booking #" + notice.reference() + " was cancelled", content);
+    }
+
+    // Only a refund the gateway has processed is described as issued
+    private static String refundNote(Payment.PaymentStatus status) {
+        if (status == Payment.PaymentStatus.REFUNDED) {
+            return "<p style='font-size: 14px; color: #777;'>A full refund has been issued to your original payment method "
+                    + "and should reach you within 5-7 working days.</p>";
+        }
+        if (status == Payment.PaymentStatus.REFUND_PENDING || status == Payment.PaymentStatus.PARTIALLY_REFUNDED) {
+            return "<p style='font-size: 14px; color: #777;'>A full refund to your original payment method has been initiated. "
+                    + "Once it is processed it should reach you within 5-7 working days.</p>";
+        }
+        return "";
+    }
+
+    private Notice toNotice(Booking booking) {
+        Payment payment = booking.getPayment();
+        return new Notice(
+                booking.getUser().getEmail(),
+                booking.getBookingReference(),
+                booking.getShowtime().getDate().toString(),
+                booking.getShowtime().getTime(),
+                payment != null ? payment.getStatus() : null);
+    }
+}
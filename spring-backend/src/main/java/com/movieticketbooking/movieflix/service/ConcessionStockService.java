@@ -0,0 +1,341 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.ShowtimeKey;
+import com.movieticketbooking.movieflix.models.ConcessionStock;
+import com.movieticketbooking.movieflix.models.FoodItem;
+import com.movieticketbooking.movieflix.repository.ConcessionStockRepository;
+import com.movieticketbooking.movieflix.repository.FoodOrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-theatre, per-show stock of snack bar items.
+ *
+ * Stock is only tracked for items an admin has given a capacity for a show
+ * slot (theatre, date and time); anything else can be ordered freely, as
+ * before. Shows that start at the same time in one theatre share the snack
+ * bar, so they draw on the same counters.
+ *
+ * Counters live in memory and are taken with compare-and-set, so the rush
+ * before an interval never queues on a database row. A payment order reserves
+ * its items when it is created, all-or-nothing, and the reservation is either
+ * committed once the booking commits or handed back when the order is
+ * abandoned, fails or expires. Committed sales are written back to
+ * concession_stock.sold in one batched update per interval; a crash loses at
+ * most the sales of the last interval from that column. Each show slot is
+ * loaded from the table the first time it is touched. Items of a cancelled
+ * booking go back on the counters once the cancellation commits.
+ */
+@Service
+public class ConcessionStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcessionStockService.class);
+
+    private final ConcessionStockRepository concessionStockRepository;
+    private final FoodOrderRepository foodOrderRepository;
+    private final FoodItemCache foodItemCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final ConcurrentMap<Slot, ConcurrentMap<Long, Counter>> slots = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Reservation> reservationsByOrder = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConcessionStockService(ConcessionStockRepository concessionStockRepository,
+                                  FoodOrderRepository foodOrderRepository,
+                                  FoodItemCache foodItemCache,
+                                  JdbcTemplate jdbcTemplate,
+                                  @Value("${concessions.reservation.ttl-seconds:600}") long ttlSeconds) {
+        this(concessionStockRepository, foodOrderRepository, foodItemCache, jdbcTemplate,
+                Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+    }
+
+    ConcessionStockService(ConcessionStockRepository concessionStockRepository,
+                           FoodOrderRepository foodOrderRepository,
+                           FoodItemCache foodItemCache,
+                           JdbcTemplate jdbcTemplate,
+                           Duration ttl,
+                           Clock clock) {
+        this.concessionStockRepository = concessionStockRepository;
+        this.foodOrderRepository = foodOrderRepository;
+        this.foodItemCache = foodItemCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    public record Slot(String theatreId, LocalDate date, String time) {
+        public static Slot of(ShowtimeKey showtime) {
+            return new Slot(showtime.theatreId(), showtime.date(), showtime.time());
+        }
+    }
+
+    // Quantities are only those of stock-tracked items, by food item id
+    public record Reservation(String token, Slot slot, Map<Long, Integer> quantities, String holder, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+
+    private static final class Counter {
+
+        private final Long stockId;
+        private volatile int capacity;
+        private final AtomicInteger available;
+        private final AtomicInteger unflushedSold = new AtomicInteger();
+
+        Counter(Long stockId, int capacity, int sold) {
+            this.stockId = stockId;
+            this.capacity = capacity;
+            this.available = new AtomicInteger(capacity - sold);
+        }
+
+        boolean tryTake(int quantity) {
+            int current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            return true;
+        }
+    }
+
+    /**
+     * Takes the ordered items off the slot's counters. Empty if any tracked
+     * item does not have enough left, in which case nothing is taken.
+     */
+    public Optional<Reservation> reserve(Slot slot, Map<String, Integer> quantitiesByName, String holder) {
+        ConcurrentMap<Long, Counter> counters = counters(slot);
+        Map<Long, Integer> tracked = new TreeMap<>();
+        if (!counters.isEmpty() && !quantitiesByName.isEmpty()) {
+            for (FoodItem item : foodItemCache.findByNames(quantitiesByName.keySet()).values()) {
+                Integer quantity = quantitiesByName.get(item.getName());
+                if (quantity != null && counters.containsKey(item.getId())) {
+                    tracked.merge(item.getId(), quantity, Integer::sum);
+                }
+            }
+        }
+
+        Map<Long, Integer> taken = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : tracked.entrySet()) {
+            if (!counters.get(entry.getKey()).tryTake(entry.getValue())) {
+                giveBack(counters, taken);
+                return Optional.empty();
+            }
+            taken.put(entry.getKey(), entry.getValue());
+        }
+        return Optional.of(new Reservation(UUID.randomUUID().toString(), slot, Map.copyOf(taken),
+                holder, clock.instant().plus(ttl)));
+    }
+
+    public void bindToOrder(Reservation reservation, String orderId) {
+        if (!reservation.quantities().isEmpty()) {
+            reservationsByOrder.put(orderId, reservation);
+        }
+    }
+
+    /**
+     * Hands the order's reservation to the payment that is about to book it, so
+     * it can no longer expire, or reserves the items again if it already has.
+     * The caller must then either commit or release what it gets back.
+     */
+    public Optional<Reservation> secureForOrder(String orderId, Slot slot, Map<String, Integer> quantitiesByName,
+                                                String holder) {
+        Reservation existing = reservationsByOrder.remove(orderId);
+        if (existing != null && existing.slot().equals(slot)) {
+            return Optional.of(existing);
+        }
+        release(existing);
+        return reserve(slot, quantitiesByName, holder);
+    }
+
+    // Called inside the booking transaction: the items count as sold once it commits
+    public void commitAfterCommit(Reservation reservation) {
+        if (reservation == null || reservation.quantities().isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            ConcurrentMap<Long, Counter> counters = counters(reservation.slot());
+            reservation.quantities().forEach((foodItemId, quantity) -> {
+                Counter counter = counters.get(foodItemId);
+                if (counter != null) {
+                    counter.unflushedSold.addAndGet(quantity);
+                }
+            });
+        });
+    }
+
+    /**
+     * Puts the food of cancelled bookings back on the slot's counters once the
+     * cancellation commits; the write-back takes it off concession_stock.sold.
+     * The quantities are read straight away, inside the caller's transaction.
+     */
+    public void returnForBookingsAfterCommit(Slot slot, Collection<Long> bookingIds) {
+        if (bookingIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Object[] row : foodOrderRepository.sumQuantityByFoodItem(bookingIds)) {
+            quantities.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        if (quantities.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            ConcurrentMap<Long, Counter> counters = counters(slot);
+            quantities.forEach((foodItemId, quantity) -> {
+                Counter counter = counters.get(foodItemId);
+                if (counter != null) {
+                    counter.available.addAndGet(quantity);
+                    counter.unflushedSold.addAndGet(-quantity);
+                }
+            });
+        });
+    }
+
+    // Gives the items back. Reservations bound to an order are released through releaseOrder,
+    // secureForOrder or the expiry sweep, which take them off the order first
+    public void release(Reservation reservation) {
+        if (reservation == null || reservation.quantities().isEmpty()) {
+            return;
+        }
+        ConcurrentMap<Long, Counter> counters = slots.get(reservation.slot());
+        if (counters != null) {
+            giveBack(counters, reservation.quantities());
+        }
+    }
+
+    public void releaseOrder(String orderId, String holder) {
+        Reservation reservation = reservationsByOrder.get(orderId);
+        if (reservation != null && reservation.holder().equals(holder)
+                && reservationsByOrder.remove(orderId, reservation)) {
+            release(reservation);
+        }
+    }
+
+    // Remaining stock of the slot's tracked items, by food item id
+    public Map<Long, Integer> getAvailable(Slot slot) {
+        Map<Long, Integer> available = new TreeMap<>();
+        counters(slot).forEach((foodItemId, counter) -> available.put(foodItemId, Math.max(0, counter.available.get())));
+        return available;
+    }
+
+    // Sets how many of each item the slot has in total, sold ones included
+    public Map<Long, Integer> setCapacity(Slot slot, Map<Long, Integer> capacities) {
+        ConcurrentMap<Long, Counter> counters = counters(slot);
+        capacities.forEach((foodItemId, capacity) -> {
+            Counter counter = counters.get(foodItemId);
+            if (counter != null) {
+                // Only the capacity column: sold is owned by the write-back
+                jdbcTemplate.update("UPDATE concession_stock SET capacity = ? WHERE id = ?", capacity, counter.stockId);
+                synchronized (counter) {
+                    counter.available.addAndGet(capacity - counter.capacity);
+                    counter.capacity = capacity;
+                }
+            } else {
+                ConcessionStock stock = new ConcessionStock();
+                stock.setTheatreId(slot.theatreId());
+                stock.setShowDate(slot.date());
+                stock.setShowTime(slot.time());
+                stock.setFoodItemId(foodItemId);
+                stock.setCapacity(capacity);
+                stock = concessionStockRepository.save(stock);
+                counters.put(foodItemId, new Counter(stock.getId(), capacity, 0));
+            }
+        });
+        return getAvailable(slot);
+    }
+
+    @Scheduled(fixedDelayString = "${concessions.write-back-interval-ms:5000}")
+    public void writeBack() {
+        Map<Counter, Integer> pending = new HashMap<>();
+        slots.values().forEach(counters -> counters.values().forEach(counter -> {
+            int sold = counter.unflushedSold.getAndSet(0);
+            if (sold != 0) {
+                pending.put(counter, sold);
+            }
+        }));
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(pending.size());
+        pending.forEach((counter, sold) -> batch.add(new Object[]{sold, counter.stockId}));
+        try {
+            jdbcTemplate.batchUpdate("UPDATE concession_stock SET sold = sold + ? WHERE id = ?", batch);
+        } catch (DataAccessException e) {
+            // Kept for the next run
+            pending.forEach((counter, sold) -> counter.unflushedSold.addAndGet(sold));
+            logger.warn("Could not write back concession sales for {} items: {}", pending.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${concessions.sweep-interval-ms:30000}")
+    public void releaseExpiredReservations() {
+        Instant now = clock.instant();
+        int released = 0;
+        for (Map.Entry<String, Reservation> entry : reservationsByOrder.entrySet()) {
+            if (entry.getValue().isExpired(now) && reservationsByOrder.remove(entry.getKey(), entry.getValue())) {
+                release(entry.getValue());
+                released++;
+            }
+        }
+        // Past slots are dropped once their sales are written back
+        LocalDate today = LocalDate.now(clock);
+        slots.entrySet().removeIf(entry -> entry.getKey().date().isBefore(today)
+                && entry.getValue().values().stream().allMatch(counter -> counter.unflushedSold.get() == 0));
+        if (released > 0) {
+            logger.info("Released {} expired concession reservations", released);
+        }
+    }
+
+    @PreDestroy
+    public void flush() {
+        writeBack();
+    }
+
+    private ConcurrentMap<Long, Counter> counters(Slot slot) {
+        return slots.computeIfAbsent(slot, s -> {
+            ConcurrentMap<Long, Counter> counters = new ConcurrentHashMap<>();
+            concessionStockRepository.findByTheatreIdAndShowDateAndShowTime(s.theatreId(), s.date(), s.time())
+                    .forEach(stock -> counters.put(stock.getFoodItemId(),
+                            new Counter(stock.getId(), stock.getCapacity(), stock.getSold())));
+            return counters;
+        });
+    }
+
+    private static void giveBack(Map<Long, Counter> counters, Map<Long, Integer> quantities) {
+        quantities.forEach((foodItemId, quantity) -> {
+            Counter counter = counters.get(foodItemId);
+            if (counter != null) {
+                counter.available.addAndGet(quantity);
+            }
+        });
+    }
+}
@@ -131,5 +131,29 @@ public class EmailService {
         }
     }
 
+    public void sendCancellationEmail(String to, String subject, String content) {
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true);
+
+            String emailContent = "<div style='font-family: Arial, sans-serif; max-width: 600px; margin: auto; padding: 20px; border: 1px solid #ddd; border-radius: 8px;'>"
+                    + "<div style='text-align: center;'>"
+                    + "<img src='https://imgur.com/MXX25b3.png' style='max-width: 150px; margin-bottom: 20px;'/>"
+                    + "</div>"
+                    + "<h2 style='color: #333; text-align: center;'>Your Booking Has Been Cancelled</h2>"
+                    + content
+                    + "<hr style='border: none; border-top: 1px solid #ddd;'>"
+                    + "<p style='font-size: 12px; color: #888; text-align: center;'>MovieFlix | Need help? Contact us at support@movieflex.com</p>"
+                    + "</div>";
+
+            helper.setFrom(new InternetAddress(emailUsername, "MovieFlix Tickets"));
+            helper.setTo(to);
+            helper.setSubject(subject);
+            helper.setText(emailContent, true);
 
+            mailSender.send(message);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to send cancellation email", e);
+        }
+    }
 }
@@ -0,0 +1,373 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.MenuItem;
+import com.movieticketbooking.movieflix.models.FoodItem;
+import com.movieticketbooking.movieflix.repository.FoodItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Local copy of the external food menu, served to the snack bar pages.
+ *
+ * A background job fetches every category from the menu API in parallel,
+ * prices and formats each item once, and swaps in a new immutable snapshot;
+ * requests never call the API. A category that fails to load keeps its
+ * previous items. Menu items are also written to food_items, so orders find
+ * them there with the catalog's price and image, and the first snapshot after
+ * a restart is loaded from there while the API is fetched.
+ *
+ * Search runs on a trigram index over the lower-cased names: the query's
+ * trigrams narrow the candidates, which are then checked for the query as a
+ * substring, the same match the endpoint always used. Results are ranked
+ * exact name, then name prefix, then word prefix, then anywhere in the name.
+ */
+@Service
+public class FoodCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FoodCatalogService.class);
+
+    private static final String FOOD_API_BASE_URL = "https://free-food-menus-api-two.vercel.app";
+    public static final List<String> CATEGORIES = List.of(
+            "burgers", "pizzas", "sandwiches", "ice-cream",
+            "drinks", "bbqs", "best-foods", "breads"
+    );
+    private static final String DEFAULT_CATEGORY = "best-foods";
+
+    private record Entry(Map<String, Object> item, String lowerName) {}
+
+    private record Snapshot(Map<String, List<Map<String, Object>>> byCategory,
+                            List<Entry> entries,
+                            Map<String, int[]> trigrams) {}
+
+    private final RestTemplate restTemplate;
+    private final FoodItemRepository foodItemRepository;
+    private final FoodItemCache foodItemCache;
+    private final ExecutorService fetcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Map<String, Object>> fallbackItems = List.of(
+            createFallbackItem("Popcorn Combo", "Large popcorn with drink", 129, 400),
+            createFallbackItem("Nachos", "Cheesy nachos with salsa", 179, 500),
+            createFallbackItem("Soft Drink", "Large carbonated beverage", 99, 150)
+    );
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), List.of(), Map.of());
+
+    public FoodCatalogService(RestTemplate restTemplate, FoodItemRepository foodItemRepository,
+                              FoodItemCache foodItemCache) {
+        this.restTemplate = restTemplate;
+        this.foodItemRepository = foodItemRepository;
+        this.foodItemCache = foodItemCache;
+    }
+
+    // The category's items, or the fallback snacks when the menu has none
+    public List<Map<String, Object>> getItems(String category) {
+        String key = category == null || category.isEmpty() ? DEFAULT_CATEGORY : category.toLowerCase();
+        List<Map<String, Object>> items = snapshot.byCategory().get(key);
+        return items == null || items.isEmpty() ? fallbackItems : items;
+    }
+
+    public List<Map<String, Object>> search(String query) {
+        String needle = query.toLowerCase();
+        Snapshot current = snapshot;
+        List<Entry> matches = new ArrayList<>();
+        for (int index : candidates(current, needle)) {
+            Entry entry = current.entries().get(index);
+            if (entry.lowerName().contains(needle)) {
+                matches.add(entry);
+            }
+        }
+        if (matches.isEmpty()) {
+            return fallbackItems.stream()
+                    .filter(item -> item.get("name").toString().toLowerCase().contains(needle))
+                    .collect(Collectors.toList());
+        }
+        return matches.stream()
+                .sorted(Comparator.comparingInt((Entry entry) -> rank(entry.lowerName(), needle))
+                        .thenComparing(Entry::lowerName))
+                .map(Entry::item)
+                .collect(Collectors.toList());
+    }
+
+    // Entries that contain every trigram of the needle; all entries when it is too short to have one
+    private static int[] candidates(Snapshot current, String needle) {
+        if (needle.length() < 3) {
+            return IntStream.range(0, current.entries().size()).toArray();
+        }
+        int[] smallest = null;
+        List<int[]> postings = new ArrayList<>();
+        for (int i = 0; i + 3 <= needle.length(); i++) {
+            int[] ids = current.trigrams().get(needle.substring(i, i + 3));
+            if (ids == null) {
+                return new int[0];
+            }
+            postings.add(ids);
+            if (smallest == null || ids.length < smallest.length) {
+                smallest = ids;
+            }
+        }
+        int[] result = smallest;
+        for (int[] ids : postings) {
+            if (ids != smallest) {
+                result = intersect(result, ids);
+            }
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                out[n++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int rank(String name, String needle) {
+        if (name.equals(needle)) {
+            return 0;
+        }
+        if (name.startsWith(needle)) {
+            return 1;
+        }
+        if (name.contains(" " + needle)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loadSaved();
+        fetcher.execute(this::refresh);
+    }
+
+    // Serves the menu saved by the last refresh until the API answers, rather than the fallback snacks
+    private void loadSaved() {
+        try {
+            Map<String, List<Map<String, Object>>> byCategory = new LinkedHashMap<>();
+            for (FoodItem item : foodItemRepository.findByMenuCategoryIsNotNullAndIsAvailableTrue()) {
+                byCategory.computeIfAbsent(item.getMenuCategory(), k -> new ArrayList<>()).add(formatSavedItem(item));
+            }
+            byCategory.replaceAll((category, items) -> List.copyOf(items));
+            snapshot = buildSnapshot(byCategory);
+            logger.info("Loaded {} saved food items", snapshot.entries().size());
+        } catch (Exception e) {
+            logger.warn("Could not load the saved food menu: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${food.catalog.refresh-interval-ms:3600000}",
+            fixedDelayString = "${food.catalog.refresh-interval-ms:3600000}")
+    public void refresh() {
+        Map<String, CompletableFuture<MenuItem[]>> fetches = new LinkedHashMap<>();
+        CATEGORIES.forEach(category -> fetches.put(category, CompletableFuture.supplyAsync(
+                () -> restTemplate.getForObject(FOOD_API_BASE_URL + "/" + category, MenuItem[].class), fetcher)));
+
+        Snapshot previous = snapshot;
+        Map<String, List<Map<String, Object>>> byCategory = new LinkedHashMap<>();
+        Map<String, MenuItem> menu = new LinkedHashMap<>();
+        Map<String, String> categoryByName = new HashMap<>();
+        fetches.forEach((category, fetch) -> {
+            try {
+                MenuItem[] items = fetch.join();
+                List<MenuItem> valid = items == null ? List.of() : Arrays.stream(items)
+                        .filter(item -> item.id() != null && item.name() != null)
+                        .toList();
+                valid.forEach(item -> {
+                    menu.putIfAbsent(item.id(), item);
+                    categoryByName.putIfAbsent(item.name(), category);
+                });
+                byCategory.put(category, valid.stream().map(FoodCatalogService::formatFoodItem).toList());
+            } catch (Exception e) {
+                logger.warn("Could not load food category {}: {}", category, e.getMessage());
+                byCategory.put(category, previous.byCategory().getOrDefault(category, List.of()));
+            }
+        });
+
+        snapshot = buildSnapshot(byCategory);
+        logger.info("Food catalog holds {} items", snapshot.entries().size());
+        persist(menu.values(), categoryByName);
+    }
+
+    private static Snapshot buildSnapshot(Map<String, List<Map<String, Object>>> byCategory) {
+        // Each item once, even when it is listed under several categories
+        Map<Object, Map<String, Object>> unique = new LinkedHashMap<>();
+        byCategory.values().forEach(items -> items.forEach(item -> unique.putIfAbsent(item.get("id"), item)));
+
+        List<Entry> entries = unique.values().stream()
+                .map(item -> new Entry(item, item.get("name").toString().toLowerCase()))
+                .toList();
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int index = 0; index < entries.size(); index++) {
+            String name = entries.get(index).lowerName();
+            for (int i = 0; i + 3 <= name.length(); i++) {
+                List<Integer> ids = postings.computeIfAbsent(name.substring(i, i + 3), k -> new ArrayList<>());
+                if (ids.isEmpty() || ids.get(ids.size() - 1) != index) {
+                    ids.add(index);
+                }
+            }
+        }
+        Map<String, int[]> trigrams = postings.entrySet().stream().collect(Collectors.toUnmodifiableMap(
+                Map.Entry::getKey, e -> e.getValue().stream().mapToInt(Integer::intValue).toArray()));
+        return new Snapshot(Map.copyOf(byCategory), entries, trigrams);
+    }
+
+    // Keeps food_items in step with the menu so orders see current prices and images
+    private void persist(Collection<MenuItem> items, Map<String, String> categoryByName) {
+        try {
+            Map<String, MenuItem> byName = items.stream()
+                    .collect(Collectors.toMap(MenuItem::name, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+            Map<String, FoodItem> existing = foodItemRepository.findByNameIn(byName.keySet()).stream()
+                    .collect(Collectors.toMap(FoodItem::getName, Function.identity(), (a, b) -> a));
+
+            List<FoodItem> changed = new ArrayList<>();
+            byName.forEach((name, menuItem) -> {
+                Map<String, Object> formatted = formatFoodItem(menuItem);
+                double price = ((Number) formatted.get("price")).doubleValue();
+                String description = formatted.get("description").toString();
+                // food_items.description holds at most 500 characters
+                if (description.length() > 500) {
+                    description = description.substring(0, 500);
+                }
+                String image = formatted.get("image").toString();
+                String menuCategory = categoryByName.get(name);
+                FoodItem item = existing.get(name);
+                if (item == null) {
+                    item = new FoodItem(name, description, price);
+                    item.setImageUrl(image);
+                    item.setIsAvailable(true);
+                    item.setCategory(toFoodCategory(menuCategory));
+                    item.setMenuCategory(menuCategory);
+                    changed.add(item);
+                } else if (!Objects.equals(item.getPrice(), price) || !Objects.equals(item.getDescription(), description)
+                        || !Objects.equals(item.getImageUrl(), image)
+                        || !Objects.equals(item.getMenuCategory(), menuCategory)) {
+                    item.setPrice(price);
+                    item.setDescription(description);
+                    item.setImageUrl(image);
+                    item.setMenuCategory(menuCategory);
+                    changed.add(item);
+                }
+            });
+            foodItemCache.putAll(foodItemRepository.saveAll(changed));
+        } catch (Exception e) {
+            logger.warn("Could not save the food menu: {}", e.getMessage());
+        }
+    }
+
+    private static FoodItem.FoodCategory toFoodCategory(String menuCategory) {
+        if ("drinks".equals(menuCategory)) {
+            return FoodItem.FoodCategory.BEVERAGE;
+        }
+        if ("ice-cream".equals(menuCategory)) {
+            return FoodItem.FoodCategory.DESSERT;
+        }
+        return FoodItem.FoodCategory.SNACK;
+    }
+
+    private static Map<String, Object> formatFoodItem(MenuItem item) {
+        return Map.of(
+                "id", item.id(),
+                "name", item.name(),
+                "description", item.dsc() != null ? item.dsc() : "",
+                "price", (int) getStablePrice(item.id(), item.name()),
+                "calories", getLogicalCalories(item.name()),
+                "allergens", "May contain allergens",
+                "image", item.img() != null ? item.img() : "",
+                "category", item.category() != null ? item.category() : "snack"
+        );
+    }
+
+    private static Map<String, Object> formatSavedItem(FoodItem item) {
+        return Map.of(
+                "id", String.valueOf(item.getId()),
+                "name", item.getName(),
+                "description", item.getDescription() != null ? item.getDescription() : "",
+                "price", item.getPrice().intValue(),
+                "calories", getLogicalCalories(item.getName()),
+                "allergens", "May contain allergens",
+                "image", item.getImageUrl() != null ? item.getImageUrl() : "",
+                "category", item.getMenuCategory()
+        );
+    }
+
+    private static double getStablePrice(String itemId, String itemName) {
+        // Use absolute value to ensure positive hash
+        int hash = Math.abs(itemId.hashCode() + itemName.hashCode());
+
+        String lowerName = itemName.toLowerCase();
+        if (lowerName.contains("burger")) return 199;
+        if (lowerName.contains("pizza")) return 299;
+        if (lowerName.contains("drink")) return 99;
+        if (lowerName.contains("ice cream")) return 149;
+        if (lowerName.contains("popcorn")) return 129;
+        if (lowerName.contains("fries")) return 89;
+        if (lowerName.contains("nachos")) return 179;
+
+        // Ensure minimum price of 50 and maximum of 500
+        return Math.max(50, 150 + (hash % 350));
+    }
+
+    private static int getLogicalCalories(String itemName) {
+        String lowerName = itemName.toLowerCase();
+
+        if (lowerName.contains("burger")) return 550;
+        if (lowerName.contains("pizza")) return 850;
+        if (lowerName.contains("salad")) return 250;
+        if (lowerName.contains("drink")) return 150;
+        if (lowerName.contains("ice cream")) return 350;
+        if (lowerName.contains("popcorn")) return 400;
+        if (lowerName.contains("fries")) return 300;
+        if (lowerName.contains("nachos")) return 500;
+
+        return 450;
+    }
+
+    private static Map<String, Object> createFallbackItem(String name, String desc, double price, int calories) {
+        return Map.of(
+                "id", UUID.randomUUID().toString(),
+                "name", name,
+                "description", desc,
+                "price", (int) price,
+                "calories", calories,
+                "allergens", "May contain allergens",
+                "image", "/images/" + name.toLowerCase().replace(" ", "-") + ".jpg",
+                "category", "snack"
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetcher.shutdownNow();
+    }
+}
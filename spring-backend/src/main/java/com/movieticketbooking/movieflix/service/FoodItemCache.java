@@ -0,0 +1,158 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movieticketbooking.movieflix.models.FoodItem;
+import com.movieticketbooking.movieflix.repository.FoodItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Food items by name and by id, kept in memory.
+ *
+ * The menu is small and rarely changes, so once an item has been seen it is
+ * served from here instead of food_items. Items that are not known yet are
+ * written with a single multi-row INSERT ... ON CONFLICT (name) that returns
+ * every row, new or existing, so resolving the food lines of a booking is at
+ * most one statement however many lines it has. Call it outside a
+ * transaction: a failed upsert is retried row by row, which an aborted
+ * PostgreSQL transaction would not allow.
+ *
+ * Cached items are detached entities shared between requests: they may be
+ * referenced from new rows but must not be modified.
+ */
+@Service
+public class FoodItemCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FoodItemCache.class);
+
+    private static final String COLUMNS = "id, name, description, price, image_url, is_available, category";
+
+    private static final RowMapper<FoodItem> ROW_MAPPER = (rs, rowNum) -> {
+        FoodItem item = new FoodItem(rs.getString("name"), rs.getString("description"), rs.getDouble("price"));
+        item.setId(rs.getLong("id"));
+        item.setImageUrl(rs.getString("image_url"));
+        item.setIsAvailable(rs.getBoolean("is_available"));
+        item.setCategory(FoodItem.FoodCategory.valueOf(rs.getString("category")));
+        return item;
+    };
+
+    private final FoodItemRepository foodItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, FoodItem> byName;
+    private final Cache<Long, FoodItem> byId;
+
+    public FoodItemCache(FoodItemRepository foodItemRepository,
+                         JdbcTemplate jdbcTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${food.items.cache.max-size:5000}") long maxSize) {
+        this.foodItemRepository = foodItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.byName = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder().maximumSize(maxSize).recordStats().build(), "food_items.by_name");
+        this.byId = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder().maximumSize(maxSize).recordStats().build(), "food_items.by_id");
+    }
+
+    // Existing items only; names that are not in food_items are left out
+    public Map<String, FoodItem> findByNames(Collection<String> names) {
+        Map<String, FoodItem> found = new HashMap<>(byName.getAllPresent(names));
+        Set<String> missing = names.stream()
+                .filter(name -> !found.containsKey(name))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!missing.isEmpty()) {
+            List<FoodItem> loaded = foodItemRepository.findByNameIn(missing);
+            putAll(loaded);
+            loaded.forEach(item -> found.putIfAbsent(item.getName(), item));
+        }
+        return found;
+    }
+
+    public Map<Long, FoodItem> findByIds(Collection<Long> ids) {
+        Map<Long, FoodItem> found = new HashMap<>(byId.getAllPresent(ids));
+        Set<Long> missing = ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!missing.isEmpty()) {
+            List<FoodItem> loaded = foodItemRepository.findAllById(missing);
+            putAll(loaded);
+            loaded.forEach(item -> found.put(item.getId(), item));
+        }
+        return found;
+    }
+
+    /**
+     * Returns the stored item for each candidate's name, inserting the
+     * candidates that do not exist yet. Items that already exist are returned
+     * as they are; the candidate's details only apply to new rows.
+     */
+    public Map<String, FoodItem> resolve(Collection<FoodItem> candidates) {
+        Map<String, FoodItem> byCandidateName = candidates.stream()
+                .collect(Collectors.toMap(FoodItem::getName, item -> item, (a, b) -> a));
+        Map<String, FoodItem> resolved = new HashMap<>(byName.getAllPresent(byCandidateName.keySet()));
+        List<FoodItem> missing = byCandidateName.values().stream()
+                .filter(item -> !resolved.containsKey(item.getName()))
+                .toList();
+        if (!missing.isEmpty()) {
+            List<FoodItem> stored = upsert(missing);
+            putAll(stored);
+            stored.forEach(item -> resolved.put(item.getName(), item));
+        }
+        return resolved;
+    }
+
+    public void putAll(Collection<FoodItem> items) {
+        for (FoodItem item : items) {
+            byName.put(item.getName(), item);
+            byId.put(item.getId(), item);
+        }
+    }
+
+    private List<FoodItem> upsert(List<FoodItem> items) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO food_items (name, description, price, image_url, is_available, category) VALUES ");
+        List<Object> args = new ArrayList<>(items.size() * 6);
+        for (int i = 0; i < items.size(); i++) {
+            FoodItem item = items.get(i);
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
+            args.add(item.getName());
+            args.add(item.getDescription());
+            args.add(item.getPrice());
+            args.add(item.getImageUrl() != null ? item.getImageUrl() : "");
+            args.add(item.getIsAvailable() == null || item.getIsAvailable());
+            args.add((item.getCategory() != null ? item.getCategory() : FoodItem.FoodCategory.SNACK).name());
+        }
+        // The no-op update makes RETURNING include the rows that were already there
+        sql.append(" ON CONFLICT (name) DO UPDATE SET name = EXCLUDED.name RETURNING ").append(COLUMNS);
+        try {
+            return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+        } catch (DataAccessException e) {
+            // No unique index on name yet (duplicate names predating it): look up, then insert the rest
+            logger.warn("Food item upsert failed, saving {} items one by one: {}", items.size(), e.getMessage());
+            Map<String, FoodItem> existing = foodItemRepository.findByNameIn(
+                            items.stream().map(FoodItem::getName).toList()).stream()
+                    .collect(Collectors.toMap(FoodItem::getName, item -> item, (a, b) -> a));
+            List<FoodItem> stored = new ArrayList<>(existing.values());
+            items.stream()
+                    .filter(item -> !existing.containsKey(item.getName()))
+                    .forEach(item -> stored.add(foodItemRepository.save(item)));
+            return stored;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.razorpay.RazorpayException;
+
+// The call was not attempted: the gateway circuit is open or every gateway slot is busy
+public class GatewayUnavailableException extends RazorpayException {
+
+    public GatewayUnavailableException(String message) {
+        super(message);
+    }
+}
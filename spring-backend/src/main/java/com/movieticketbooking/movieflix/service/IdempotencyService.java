@@ -0,0 +1,80 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation at most once per idempotency key.
+ *
+ * Concurrent calls with the same key wait for the one already running and get
+ * its response; later calls get the remembered response straight from memory
+ * until it expires. Only successful (2xx) responses are remembered, so a failed
+ * attempt can be retried. This is a fast path only: callers still need a
+ * database constraint to stay correct across restarts and instances.
+ */
+@Service
+public class IdempotencyService {
+
+    private final AsyncCache<String, ResponseEntity<?>> results;
+    private final long waitMs;
+
+    public IdempotencyService(@Value("${idempotency.ttl-minutes:15}") long ttlMinutes,
+                              @Value("${idempotency.max-entries:10000}") long maxEntries,
+                              @Value("${idempotency.wait-ms:30000}") long waitMs) {
+        this.results = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .maximumSize(maxEntries)
+                .buildAsync();
+        this.waitMs = waitMs;
+    }
+
+    public ResponseEntity<?> execute(String key, Supplier<ResponseEntity<?>> action) {
+        CompletableFuture<ResponseEntity<?>> mine = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> existing = results.asMap().putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            ResponseEntity<?> response = action.get();
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                results.asMap().remove(key, mine);
+            }
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            results.asMap().remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> inFlight) {
+        try {
+            return inFlight.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "status", "error",
+                    "code", "IN_PROGRESS",
+                    "error", "This request is still being processed, please retry shortly"
+            ));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a duplicate request", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Duplicate request failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.TmdbMovie;
+import com.movieticketbooking.movieflix.dto.TmdbSearchResults;
+import com.movieticketbooking.movieflix.models.Movie;
+import com.movieticketbooking.movieflix.repository.MovieRepository;
+import com.movieticketbooking.movieflix.repository.ShowtimeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Local mirror of the TMDB movies the app books and shows.
+ *
+ * Booking pages, booking history and tickets read movie details from an
+ * in-memory index backed by the movies table, so they no longer wait on TMDB
+ * or fail when it is down. The index is loaded from the table at startup; a
+ * background job adds now-playing titles and titles with current showtimes,
+ * and refreshes entries once they are older than catalog.refresh-after. A
+ * movie that is not in the catalog yet is fetched once on first use.
+ *
+ * Details are served in the shape of TMDB's movie response (title,
+ * poster_path, genres as [{name}], vote_average, runtime, overview, ...), so
+ * existing callers read them unchanged. The maps are shared and read-only.
+ *
+ * Every catalog entry is also kept in the {@link MovieSearchIndex}, which
+ * serves search and typeahead locally. A search that finds nothing locally is
+ * sent to TMDB once and its results are added to the index.
+ */
+@Service
+public class MovieCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovieCatalogService.class);
+
+    private final MovieRepository movieRepository;
+    private final ShowtimeRepository showtimeRepository;
+    private final TmdbClient tmdbClient;
+    private final MovieSearchIndex searchIndex;
+    private final ConcurrentMap<Long, Map<String, Object>> index = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LocalDateTime> syncedAt = new ConcurrentHashMap<>();
+    // Queries TMDB had nothing for, so repeating them does not go upstream every time
+    private final Cache<String, Boolean> recentMisses = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .maximumSize(10_000)
+            .build();
+
+    @Value("${catalog.refresh-after:PT24H}")
+    private Duration refreshAfter;
+
+    @Value("${catalog.now-playing-pages:3}")
+    private int nowPlayingPages;
+
+    @Value("${catalog.showtime-lookback-days:30}")
+    private int showtimeLookbackDays;
+
+    // Bounds how many titles TMDB search results can add beyond the catalog
+    @Value("${catalog.search.max-entries:50000}")
+    private int maxSearchEntries;
+
+    public MovieCatalogService(MovieRepository movieRepository,
+                               ShowtimeRepository showtimeRepository,
+                               TmdbClient tmdbClient,
+                               MovieSearchIndex searchIndex) {
+        this.movieRepository = movieRepository;
+        this.showtimeRepository = showtimeRepository;
+        this.tmdbClient = tmdbClient;
+        this.searchIndex = searchIndex;
+    }
+
+    // Null when the movie is unknown locally and TMDB cannot be reached
+    public Map<String, Object> getDetails(Long movieId) {
+        Map<String, Object> details = index.get(movieId);
+        if (details != null) {
+            return details;
+        }
+        try {
+            return store(List.of(fromTmdb(movieId, TmdbClient.join(tmdbClient.fetchMovieAsync(movieId))))).get(movieId);
+        } catch (Exception e) {
+            logger.warn("Movie {} is not in the catalog and could not be fetched: {}", movieId, e.getMessage());
+            return null;
+        }
+    }
+
+    public Map<String, Object> getDetails(String movieId) {
+        return getDetails(Long.valueOf(movieId));
+    }
+
+    // Local index only; never waits on TMDB
+    public List<MovieSearchIndex.Entry> typeahead(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    public List<MovieSearchIndex.Entry> search(String query, int limit) {
+        List<MovieSearchIndex.Entry> local = searchIndex.search(query, limit);
+        String normalized = MovieSearchIndex.normalize(query);
+        if (!local.isEmpty() || normalized.isEmpty() || recentMisses.getIfPresent(normalized) != null) {
+            return local;
+        }
+        List<TmdbSearchResults.Result> results = tmdbClient.searchMovies(query);
+        // Only an answer with no results is a miss; a failed call is retried next time
+        if (results.isEmpty()) {
+            recentMisses.put(normalized, Boolean.TRUE);
+            return local;
+        }
+        for (TmdbSearchResults.Result result : results) {
+            if (searchIndex.size() >= maxSearchEntries) {
+                break;
+            }
+            if (result.id() != null && result.title() != null && !index.containsKey(result.id())) {
+                searchIndex.put(new MovieSearchIndex.Entry(result.id(), result.title(),
+                        result.posterPath(), result.releaseDate(), result.voteAverage()));
+            }
+        }
+        return searchIndex.search(query, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        List<Movie> movies = movieRepository.findAll();
+        movies.forEach(this::index);
+        logger.info("Loaded {} movies into the catalog", movies.size());
+    }
+
+    @Scheduled(initialDelayString = "${catalog.sync-initial-delay-ms:60000}",
+            fixedDelayString = "${catalog.sync-interval-ms:3600000}")
+    public void sync() {
+        Set<Long> wanted = new LinkedHashSet<>();
+        for (int page = 1; page <= nowPlayingPages; page++) {
+            try {
+                List<Map<String, Object>> results = (List<Map<String, Object>>)
+                        tmdbClient.getNowPlaying("en-US", "IN", page).get("results");
+                if (results == null || results.isEmpty()) {
+                    break;
+                }
+                results.forEach(movie -> wanted.add(((Number) movie.get("id")).longValue()));
+            } catch (Exception e) {
+                logger.warn("Could not list now playing page {}: {}", page, e.getMessage());
+                break;
+            }
+        }
+        wanted.addAll(showtimeRepository.findMovieIdsShowingSince(LocalDate.now().minusDays(showtimeLookbackDays)));
+
+        // Only new titles and entries past their refresh age go to TMDB
+        LocalDateTime staleBefore = LocalDateTime.now().minus(refreshAfter);
+        List<Long> due = wanted.stream()
+                .filter(id -> {
+                    LocalDateTime synced = syncedAt.get(id);
+                    return synced == null || synced.isBefore(staleBefore);
+                })
+                .toList();
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<Long, CompletableFuture<TmdbMovie>> lookups = new LinkedHashMap<>();
+        due.forEach(id -> lookups.put(id, tmdbClient.fetchMovieAsync(id)));
+        List<Movie> fetched = new ArrayList<>(due.size());
+        lookups.forEach((id, lookup) -> {
+            try {
+                fetched.add(fromTmdb(id, lookup.join()));
+            } catch (Exception e) {
+                logger.warn("Could not sync movie {}: {}", id, e.getMessage());
+            }
+        });
+        store(fetched);
+        logger.info("Catalog sync refreshed {} of {} due movies", fetched.size(), due.size());
+    }
+
+    private Map<Long, Map<String, Object>> store(List<Movie> movies) {
+        movieRepository.saveAll(movies);
+        Map<Long, Map<String, Object>> stored = new LinkedHashMap<>();
+        movies.forEach(movie -> stored.put(movie.getId(), index(movie)));
+        return stored;
+    }
+
+    private Map<String, Object> index(Movie movie) {
+        Map<String, Object> details = toDetails(movie);
+        index.put(movie.getId(), details);
+        searchIndex.put(new MovieSearchIndex.Entry(movie.getId(), movie.getTitle(), movie.getPosterPath(),
+                movie.getReleaseDate(), movie.getVoteAverage()));
+        syncedAt.put(movie.getId(), movie.getSyncedAt());
+        return details;
+    }
+
+    private static Movie fromTmdb(Long movieId, TmdbMovie tmdb) {
+        Movie movie = new Movie();
+        movie.setId(movieId);
+        movie.setTitle(tmdb.title() != null ? tmdb.title() : "Unknown Movie");
+        movie.setPosterPath(tmdb.posterPath());
+        movie.setGenres(tmdb.genres() == null ? null : tmdb.genres().stream()
+                .map(TmdbMovie.Genre::name)
+                .collect(Collectors.joining(",")));
+        movie.setVoteAverage(tmdb.voteAverage());
+        movie.setRuntime(tmdb.runtime());
+        movie.setOverview(tmdb.overview());
+        movie.setOriginalLanguage(tmdb.originalLanguage());
+        movie.setReleaseDate(tmdb.releaseDate());
+        return movie;
+    }
+
+    // Missing fields are left out so callers' getOrDefault fallbacks still apply
+    private static Map<String, Object> toDetails(Movie movie) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("id", movie.getId());
+        details.put("title", movie.getTitle());
+        putIfPresent(details, "poster_path", movie.getPosterPath());
+        details.put("genres", movie.getGenres() == null || movie.getGenres().isEmpty()
+                ? List.of()
+                : Arrays.stream(movie.getGenres().split(",")).map(name -> Map.of("name", name)).toList());
+        putIfPresent(details, "vote_average", movie.getVoteAverage());
+        putIfPresent(details, "runtime", movie.getRuntime());
+        putIfPresent(details, "overview", movie.getOverview());
+        putIfPresent(details, "original_language", movie.getOriginalLanguage());
+        putIfPresent(details, "release_date", movie.getReleaseDate());
+        return Collections.unmodifiableMap(details);
+    }
+
+    private static void putIfPresent(Map<String, Object> details, String key, Object value) {
+        if (value != null) {
+            details.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.movieticketbooking.movieflix.service;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over movie titles for search and typeahead.
+ *
+ * Every word of a title is indexed under each of its prefixes, so a lookup is
+ * one hash probe per query word followed by an intersection of the (small)
+ * posting sets; no scan over the catalog. Titles are lower-cased and stripped
+ * of accents on both sides, so "amelie" finds "Amélie". Results are ranked by
+ * how well the title matches (exact, then title prefix, then word prefixes)
+ * and then by rating.
+ *
+ * Entries are added or replaced one at a time as the catalog changes.
+ */
+@Component
+public class MovieSearchIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_PREFIX = 20;
+
+    public record Entry(Long id, String title, String posterPath, String releaseDate, Double voteAverage) {
+
+        // Same keys as a TMDB search result, so clients can use either
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("title", title);
+            map.put("poster_path", posterPath);
+            map.put("release_date", releaseDate);
+            map.put("vote_average", voteAverage);
+            return map;
+        }
+    }
+
+    private record Indexed(Entry entry, String normalizedTitle, List<String> words) {}
+
+    private final ConcurrentMap<Long, Indexed> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    public int size() {
+        return entries.size();
+    }
+
+    public synchronized void put(Entry entry) {
+        Indexed previous = entries.get(entry.id());
+        String normalized = normalize(entry.title());
+        if (previous != null && previous.normalizedTitle().equals(normalized)) {
+            // Same words; only the display fields changed
+            entries.put(entry.id(), new Indexed(entry, normalized, previous.words()));
+            return;
+        }
+        if (previous != null) {
+            removePostings(entry.id(), previous.words());
+        }
+        List<String> words = words(normalized);
+        entries.put(entry.id(), new Indexed(entry, normalized, words));
+        for (String word : words) {
+            for (int length = 1; length <= Math.min(word.length(), MAX_PREFIX); length++) {
+                postings.computeIfAbsent(word.substring(0, length), k -> ConcurrentHashMap.newKeySet()).add(entry.id());
+            }
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        Indexed previous = entries.remove(id);
+        if (previous != null) {
+            removePostings(id, previous.words());
+        }
+    }
+
+    public List<Entry> search(String query, int limit) {
+        String normalized = normalize(query);
+        List<String> terms = words(normalized);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // Intersect starting from the rarest term so the working set stays small
+        List<Set<Long>> sets = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Set<Long> ids = postings.get(term.length() > MAX_PREFIX ? term.substring(0, MAX_PREFIX) : term);
+            if (ids == null) {
+                return List.of();
+            }
+            sets.add(ids);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        List<Indexed> matches = new ArrayList<>();
+        for (Long id : sets.get(0)) {
+            Indexed indexed = entries.get(id);
+            if (indexed != null && containsAll(sets, id) && matchesLongTerms(indexed, terms)) {
+                matches.add(indexed);
+            }
+        }
+
+        matches.sort(Comparator.comparingInt((Indexed indexed) -> rank(indexed, normalized))
+                .thenComparing(indexed -> indexed.entry().voteAverage() == null ? 0 : -indexed.entry().voteAverage())
+                .thenComparing(indexed -> indexed.entry().title()));
+        return matches.stream().limit(limit).map(Indexed::entry).toList();
+    }
+
+    private static boolean containsAll(List<Set<Long>> sets, Long id) {
+        for (int i = 1; i < sets.size(); i++) {
+            if (!sets.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Prefixes are only indexed up to MAX_PREFIX characters; check longer terms against the words
+    private static boolean matchesLongTerms(Indexed indexed, List<String> terms) {
+        for (String term : terms) {
+            if (term.length() > MAX_PREFIX && indexed.words().stream().noneMatch(word -> word.startsWith(term))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int rank(Indexed indexed, String query) {
+        String title = indexed.normalizedTitle();
+        if (title.equals(query)) {
+            return 0;
+        }
+        if (title.startsWith(query)) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private void removePostings(Long id, List<String> words) {
+        for (String word : words) {
+            for (int length = 1; length <= Math.min(word.length(), MAX_PREFIX); length++) {
+                String prefix = word.substring(0, length);
+                Set<Long> ids = postings.get(prefix);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(prefix, ids);
+                    }
+                }
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_WORD.matcher(stripped.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    private static List<String> words(String normalized) {
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return List.of(normalized.split(" ")).stream().distinct().toList();
+    }
+}
@@ -0,0 +1,156 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movieticketbooking.movieflix.dto.Place;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Nearby theatre searches on Google Places, made once per geohash cell.
+ *
+ * The user's coordinates are snapped to a geohash cell (precision 5 is about
+ * 5 km square) and Places is asked once per cell, around the cell's centre.
+ * The search radius is widened by half the cell's diagonal, so every theatre
+ * within the radius of any point in the cell is found. Results go into the
+ * {@link TheatreRegistry}, which answers the query itself; a cell is only
+ * searched again once its last search is older than theatres.nearby.expire.
+ * Concurrent searches of the same cell share one Places call.
+ *
+ * Cells around the locations in theatres.nearby.prewarm (";"-separated
+ * "lat,lon" pairs, e.g. our metro centres) are loaded on a schedule, so the
+ * first users there don't wait on Places.
+ */
+@Service
+public class NearbyTheatreCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearbyTheatreCache.class);
+
+    // Places searchNearby rejects larger radii
+    private static final double MAX_PLACES_RADIUS_METERS = 50_000;
+    private static final double METERS_PER_DEGREE = 111_320;
+
+    private final PlacesClient placesClient;
+    private final TheatreRegistry theatreRegistry;
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncLoadingCache<String, List<Place>> cells;
+    private final int precision;
+    private final double radiusMeters;
+    private final Duration refresh;
+    private final Duration expire;
+
+    @Value("${theatres.nearby.prewarm:}")
+    private String prewarmLocations;
+
+    @Value("${theatres.nearby.prewarm-radius-km:10}")
+    private double prewarmRadiusKm;
+
+    public NearbyTheatreCache(PlacesClient placesClient,
+                              TheatreRegistry theatreRegistry,
+                              MeterRegistry meterRegistry,
+                              @Value("${theatres.nearby.geohash-precision:5}") int precision,
+                              @Value("${theatres.nearby.radius-meters:25000}") double radiusMeters,
+                              @Value("${theatres.nearby.refresh:PT6H}") Duration refresh,
+                              @Value("${theatres.nearby.expire:PT24H}") Duration expire,
+                              @Value("${theatres.nearby.max-cells:20000}") long maxCells) {
+        this.placesClient = placesClient;
+        this.theatreRegistry = theatreRegistry;
+        this.precision = precision;
+        this.radiusMeters = radiusMeters;
+        this.refresh = refresh;
+        this.expire = expire;
+        this.cells = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxCells)
+                .refreshAfterWrite(refresh)
+                .expireAfterWrite(expire)
+                .executor(loader)
+                .recordStats()
+                .buildAsync(this::load), "places.nearby_theatres");
+    }
+
+    public double radiusMeters() {
+        return radiusMeters;
+    }
+
+    // Makes sure the registry holds the theatres around the user's cell
+    public void ensureSearched(double lat, double lon) {
+        String cell = Geohash.encode(lat, lon, precision);
+        if (!theatreRegistry.isSearchedSince(cell, LocalDateTime.now().minus(expire))) {
+            TmdbClient.join(cells.get(cell));
+        }
+    }
+
+    private List<Place> load(String cell) {
+        double[] bounds = Geohash.bounds(cell);
+        double centerLat = (bounds[0] + bounds[2]) / 2;
+        double centerLon = (bounds[1] + bounds[3]) / 2;
+        double heightMeters = (bounds[2] - bounds[0]) * METERS_PER_DEGREE;
+        double widthMeters = (bounds[3] - bounds[1]) * METERS_PER_DEGREE * Math.cos(Math.toRadians(centerLat));
+        double halfDiagonal = Math.hypot(heightMeters, widthMeters) / 2;
+        List<Place> places = List.copyOf(placesClient.nearbyTheatres(centerLat, centerLon,
+                Math.min(MAX_PLACES_RADIUS_METERS, radiusMeters + halfDiagonal)));
+        theatreRegistry.recordSearch(cell, places);
+        return places;
+    }
+
+    @Scheduled(initialDelayString = "${theatres.nearby.prewarm-initial-delay-ms:30000}",
+            fixedDelayString = "${theatres.nearby.prewarm-interval-ms:21600000}")
+    public void prewarm() {
+        if (prewarmLocations == null || prewarmLocations.isBlank()) {
+            return;
+        }
+        Set<String> wanted = new LinkedHashSet<>();
+        for (String location : prewarmLocations.split(";")) {
+            String[] parts = location.trim().split(",");
+            if (parts.length != 2) {
+                logger.warn("Ignoring prewarm location '{}': expected lat,lon", location);
+                continue;
+            }
+            wanted.addAll(cellsAround(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim())));
+        }
+        // Only cells not searched within the refresh interval go to Places, including after a restart
+        LocalDateTime staleBefore = LocalDateTime.now().minus(refresh);
+        wanted.removeIf(cell -> theatreRegistry.isSearchedSince(cell, staleBefore));
+        wanted.forEach(cell -> cells.get(cell).exceptionally(e -> {
+            logger.warn("Could not prewarm theatres for cell {}: {}", cell, e.getMessage());
+            return List.of();
+        }));
+        logger.info("Prewarming nearby theatres for {} cells", wanted.size());
+    }
+
+    private Set<String> cellsAround(double lat, double lon) {
+        double[] bounds = Geohash.bounds(Geohash.encode(lat, lon, precision));
+        // Half-cell steps so no cell in the square is skipped
+        double latStep = (bounds[2] - bounds[0]) / 2;
+        double lonStep = (bounds[3] - bounds[1]) / 2;
+        double latSpan = prewarmRadiusKm * 1000 / METERS_PER_DEGREE;
+        double lonSpan = latSpan / Math.max(0.01, Math.cos(Math.toRadians(lat)));
+
+        Set<String> around = new LinkedHashSet<>();
+        for (double y = lat - latSpan; y <= lat + latSpan; y += latStep) {
+            for (double x = lon - lonSpan; x <= lon + lonSpan; x += lonStep) {
+                around.add(Geohash.encode(y, x, precision));
+            }
+        }
+        return around;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+}
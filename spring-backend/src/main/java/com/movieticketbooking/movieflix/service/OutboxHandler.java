@@ -0,0 +1,11 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.models.OutboxMessage;
+
+// Performs the work behind one outbox message type; throwing schedules a retry
+public interface OutboxHandler {
+
+    String type();
+
+    void handle(OutboxMessage message) throws Exception;
+}
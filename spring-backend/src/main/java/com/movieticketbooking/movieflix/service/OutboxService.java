@@ -0,0 +1,189 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.models.OutboxMessage;
+import com.movieticketbooking.movieflix.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox for work that must survive a failed send or a restart.
+ *
+ * Messages are inserted in the same transaction as the change that produces
+ * them, so a committed booking always has its ticket message and a rolled back
+ * one never does. Pollers lock due rows with SKIP LOCKED and hand them to
+ * virtual-thread workers; a semaphore caps how many run at once. Failures are
+ * retried with exponential backoff and end up DEAD after the last attempt.
+ * Delivery is at-least-once: a worker that dies mid-send is retried once its
+ * lease runs out.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, OutboxHandler> handlers;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore workers;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.backoff-seconds:30}")
+    private long backoffSeconds;
+
+    @Value("${outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository,
+                         TransactionTemplate transactionTemplate,
+                         List<OutboxHandler> handlers,
+                         MeterRegistry meterRegistry,
+                         @Value("${outbox.workers:8}") int workers) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.handlers = handlers.stream().collect(Collectors.toMap(OutboxHandler::type, Function.identity()));
+        this.meterRegistry = meterRegistry;
+        this.workers = new Semaphore(workers);
+    }
+
+    // Must be called inside the transaction whose commit should trigger the work
+    public void enqueue(String type, Long aggregateId) {
+        outboxMessageRepository.save(new OutboxMessage(type, aggregateId));
+        // Pick the message up straight away rather than on the next poll
+        TransactionCallbacks.afterCommit(() -> executor.execute(this::drain));
+    }
+
+    // Same as enqueue, for many aggregates at once; the inserts go out as JDBC batches
+    public void enqueueAll(String type, Collection<Long> aggregateIds) {
+        if (aggregateIds.isEmpty()) {
+            return;
+        }
+        outboxMessageRepository.saveAll(aggregateIds.stream().map(id -> new OutboxMessage(type, id)).toList());
+        TransactionCallbacks.afterCommit(() -> executor.execute(this::drain));
+    }
+
+    /**
+     * Claims as many due messages as there are idle workers and hands them
+     * over. Never waits for a worker: permits are taken before rows are
+     * claimed, so this is safe to run from the scheduler thread, and one drain
+     * at a time keeps after-commit drains from claiming more than can run.
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:2000}")
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        int permits = 0;
+        try {
+            // Only a drain takes permits and only one runs at a time, so this cannot fail
+            int idle = workers.availablePermits();
+            if (idle == 0 || !workers.tryAcquire(idle)) {
+                return;
+            }
+            permits = idle;
+            for (OutboxMessage message : claim(idle)) {
+                executor.execute(() -> {
+                    try {
+                        process(message);
+                    } finally {
+                        workers.release();
+                    }
+                });
+                permits--;
+            }
+        } finally {
+            workers.release(permits);
+            draining.set(false);
+        }
+    }
+
+    private List<OutboxMessage> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxMessageRepository.lockDue(now, limit);
+            for (OutboxMessage message : due) {
+                message.setStatus(OutboxMessage.Status.PROCESSING);
+                message.setAttempts(message.getAttempts() + 1);
+                message.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+    }
+
+    private void process(OutboxMessage message) {
+        OutboxHandler handler = handlers.get(message.getType());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No handler for outbox message type " + message.getType());
+            }
+            handler.handle(message);
+            message.setStatus(OutboxMessage.Status.SENT);
+            message.setProcessedAt(LocalDateTime.now());
+            message.setLastError(null);
+            outboxMessageRepository.save(message);
+            meterRegistry.counter("outbox.messages", "type", message.getType(), "outcome", "sent").increment();
+        } catch (Exception e) {
+            fail(message, e);
+        }
+    }
+
+    private void fail(OutboxMessage message, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        message.setLastError(error);
+        if (message.getAttempts() >= maxAttempts) {
+            message.setStatus(OutboxMessage.Status.DEAD);
+            logger.error("Outbox message {} ({} for {}) is dead after {} attempts: {}",
+                    message.getId(), message.getType(), message.getAggregateId(), message.getAttempts(), error);
+            meterRegistry.counter("outbox.messages", "type", message.getType(), "outcome", "dead").increment();
+        } else {
+            Duration backoff = Duration.ofSeconds(backoffSeconds).multipliedBy(1L << Math.min(message.getAttempts() - 1, 16));
+            if (backoff.compareTo(MAX_BACKOFF) > 0) {
+                backoff = MAX_BACKOFF;
+            }
+            message.setStatus(OutboxMessage.Status.PENDING);
+            message.setNextAttemptAt(LocalDateTime.now().plus(backoff));
+            logger.warn("Outbox message {} ({} for {}) failed, retrying in {}s: {}",
+                    message.getId(), message.getType(), message.getAggregateId(), backoff.toSeconds(), error);
+            meterRegistry.counter("outbox.messages", "type", message.getType(), "outcome", "retry").increment();
+        }
+        try {
+            outboxMessageRepository.save(message);
+        } catch (Exception saveError) {
+            // The lease will expire and the message will be picked up again
+            logger.error("Could not record failure of outbox message {}: {}", message.getId(), saveError.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Outbox workers did not finish before shutdown");
+        }
+    }
+}
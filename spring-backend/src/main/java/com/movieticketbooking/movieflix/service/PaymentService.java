@@ -1,33 +1,35 @@
 package com.movieticketbooking.movieflix.service;
 
+import com.movieticketbooking.movieflix.dto.ShowtimeKey;
 import com.movieticketbooking.movieflix.models.*;
 import com.movieticketbooking.movieflix.repository.*;
-import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
 import com.razorpay.Order;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import org.json.JSONException;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
-import org.springframework.web.client.RestTemplate;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.json.JSONObject;
 import org.json.JSONArray;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.apache.commons.codec.digest.HmacUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Service
 public class PaymentService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
+
     @Value("${razorpay.api.key.id}")
     private String razorpayKeyId;
 
@@ -35,23 +37,26 @@ public class PaymentService {
     private String razorpayKeySecret;
 
     @Autowired
-    private TicketService ticketService;
+    private OutboxService outboxService;
 
     @Autowired
-    private EmailService emailService;
+    private IdempotencyService idempotencyService;
 
-    @Value("${tmdb.api.key}")
-    private String tmdbApiKey;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
-    @Value("${google.api.key}")
-    private String googleApiKey;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private RazorpayGateway razorpayGateway;
 
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private PaymentOrderRepository paymentOrderRepository;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -62,30 +67,61 @@ public class PaymentService {
     private BookingRepository bookingRepository;
 
     @Autowired
-    private BookedSeatRepository bookedSeatRepository;
+    private FoodItemCache foodItemCache;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
 
     @Autowired
-    private FoodItemRepository foodItemRepository;
+    private SeatHoldService seatHoldService;
 
     @Autowired
-    private FoodOrderRepository foodOrderRepository;
+    private ShowtimeAvailabilityService showtimeAvailabilityService;
+
+    @Autowired
+    private ConcessionStockService concessionStockService;
+
+    @Autowired
+    private RefundService refundService;
 
     public ResponseEntity<?> createPaymentOrder(OrderRequest orderRequest, String userEmail) {
+        SeatHoldService.SeatHold seatHold = null;
+        ConcessionStockService.Reservation concessions = null;
         try {
-            System.out.println("===== STARTING RAZORPAY ORDER CREATION =====");
-            System.out.println("[DEBUG] Using Razorpay Key ID: " + razorpayKeyId.substring(0, 4) + "***"); // Mask partial key
-            System.out.println("[DEBUG] User Email: " + userEmail);
-            System.out.println("[DEBUG] Received Order Request: " + new JSONObject(orderRequest).toString());
-
-            // Initialize Razorpay client
-            System.out.println("[DEBUG] Initializing Razorpay client...");
-            RazorpayClient razorpay = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-            System.out.println("[DEBUG] Razorpay client initialized successfully");
-
-            // Amount conversion debug
-            System.out.println("[DEBUG] Original Amount: " + orderRequest.getAmount());
+            logger.debug("Creating Razorpay order for {}: {}", userEmail, new JSONObject(orderRequest));
+
+            // Claim the seats before the customer is sent to the gateway
+            ShowtimeKey showtimeKey = toShowtimeKey(orderRequest.getMovieId(), orderRequest.getTheaterId(),
+                    orderRequest.getDate(), orderRequest.getShowtime());
+            if (showtimeKey != null && seatInventoryService.isCancelled(showtimeKey)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("{\"status\":\"error\",\"code\":\"SHOWTIME_CANCELLED\",\"message\":\"This show has been cancelled\"}");
+            }
+            if (showtimeKey != null && orderRequest.getSeats() != null && !orderRequest.getSeats().isEmpty()) {
+                seatHold = seatHoldService.claim(showtimeKey, orderRequest.getSeats(), userEmail).orElse(null);
+                if (seatHold == null) {
+                    logger.debug("Seats already taken: {}", orderRequest.getSeats());
+                    return ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body("{\"status\":\"error\",\"code\":\"SEATS_UNAVAILABLE\",\"message\":\"One or more selected seats are no longer available\"}");
+                }
+                logger.debug("Seats held until {}", seatHold.expiresAt());
+            }
+
+            // Take the snacks off the show's stock too, so a sold-out item can't be paid for
+            if (showtimeKey != null && orderRequest.getFoodItems() != null && !orderRequest.getFoodItems().isEmpty()) {
+                Map<String, Integer> quantities = new HashMap<>();
+                orderRequest.getFoodItems().forEach(item -> quantities.merge(item.getName(), item.getQuantity(), Integer::sum));
+                concessions = concessionStockService.reserve(
+                        ConcessionStockService.Slot.of(showtimeKey), quantities, userEmail).orElse(null);
+                if (concessions == null) {
+                    seatHoldService.release(seatHold);
+                    return ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body("{\"status\":\"error\",\"code\":\"CONCESSIONS_UNAVAILABLE\",\"message\":\"One or more food items are sold out for this show\"}");
+                }
+            }
+
             int amountInPaise = (int) Math.round(orderRequest.getAmount() * 100);
-            System.out.println("[DEBUG] Converted Amount (paise): " + amountInPaise);
+            logger.debug("Order amount {} converted to {} paise", orderRequest.getAmount(), amountInPaise);
 
             // Build order request
             JSONObject orderRequestJson = new JSONObject();
@@ -94,56 +130,24 @@ public class PaymentService {
             orderRequestJson.put("receipt", "order_"+System.currentTimeMillis());
             orderRequestJson.put("payment_capture", true);
 
-            // Build notes
+            // Notes only carry enough to identify the booking in the Razorpay dashboard;
+            // the full order, food items included, is kept in the local ledger
             JSONObject notesJson = new JSONObject();
             notesJson.put("userId", userEmail);
             notesJson.put("movieId", orderRequest.getMovieId());
             notesJson.put("theaterId", orderRequest.getTheaterId());
             notesJson.put("showtime", orderRequest.getShowtime());
             notesJson.put("category", orderRequest.getCategory());
-
-            // Seats handling
-            if (orderRequest.getSeats() != null && !orderRequest.getSeats().isEmpty()) {
-                String seats = String.join(",", orderRequest.getSeats());
-                notesJson.put("seats", seats);
-                System.out.println("[DEBUG] Processing " + orderRequest.getSeats().size() + " seats");
-            } else {
-                notesJson.put("seats", "");
-                System.out.println("[DEBUG] No seats in request");
-            }
-
+            notesJson.put("seats", joinSeats(orderRequest.getSeats()));
             notesJson.put("date", orderRequest.getDate());
 
-            // Food items debug
-            if (orderRequest.getFoodItems() != null && !orderRequest.getFoodItems().isEmpty()) {
-                System.out.println("[DEBUG] Processing " + orderRequest.getFoodItems().size() + " food items");
-                JSONArray foodItemsArray = new JSONArray();
-                for (FoodItemDTO item : orderRequest.getFoodItems()) {
-                    JSONObject foodItemJson = new JSONObject();
-                    foodItemJson.put("id", item.getId());
-                    foodItemJson.put("name", item.getName());
-                    foodItemJson.put("price", item.getPrice());
-                    foodItemJson.put("quantity", item.getQuantity());
-                    foodItemsArray.put(foodItemJson);
-                }
-                notesJson.put("foodItems", foodItemsArray);
-            } else {
-                System.out.println("[DEBUG] No food items in request");
-            }
-
-            // Validate notes size
-            System.out.println("[DEBUG] Notes JSON size: " + notesJson.toString().length() + " characters");
-            if (notesJson.toString().length() > 1500) {
-                System.err.println("[ERROR] Notes payload exceeds 1500 character limit!");
-            }
-
             orderRequestJson.put("notes", notesJson);
-            System.out.println("[DEBUG] Final Order Request JSON: " + orderRequestJson.toString(4));
 
             // Create order
-            System.out.println("[DEBUG] Creating Razorpay order...");
-            Order order = razorpay.orders.create(orderRequestJson);
-            System.out.println("[DEBUG] Razorpay Order Response: " + order.toString());
+            Order order = razorpayGateway.createOrder(orderRequestJson);
+            logger.debug("Created Razorpay order {}", order);
+
+            paymentOrderRepository.save(toPaymentOrder(order.get("id").toString(), orderRequest, userEmail));
 
             // Prepare response
             JSONObject response = new JSONObject();
@@ -151,11 +155,25 @@ public class PaymentService {
             response.put("amount", order.get("amount").toString());
             response.put("currency", order.get("currency").toString());
             response.put("key", razorpayKeyId);
+            if (seatHold != null) {
+                response.put("holdExpiresAt", seatHold.expiresAt().toString());
+                seatHoldService.bindToOrder(seatHold, order.get("id").toString());
+            }
+            if (concessions != null) {
+                concessionStockService.bindToOrder(concessions, order.get("id").toString());
+            }
 
-            System.out.println("===== ORDER CREATION SUCCESSFUL =====");
             return ResponseEntity.ok(response.toString());
 
+        } catch (GatewayUnavailableException e) {
+            seatHoldService.release(seatHold);
+            concessionStockService.release(concessions);
+            logger.warn("Razorpay unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("{\"status\":\"error\",\"code\":\"PAYMENT_GATEWAY_UNAVAILABLE\",\"message\":\"Payment gateway is busy, please try again shortly\"}");
         } catch (RazorpayException e) {
+            seatHoldService.release(seatHold);
+            concessionStockService.release(concessions);
             String razorpayMessage = e.getMessage();
             String errorCode = "unknown";
             int statusCode = 500; // Default to internal server error
@@ -169,12 +187,10 @@ public class PaymentService {
                 statusCode = errorDetails.optInt("http_status_code", 500);
                 errorDesc = errorDetails.optString("description", razorpayMessage);
             } catch (JSONException jsonEx) {
-                System.err.println("[ERROR] Failed to parse Razorpay error message: " + jsonEx.getMessage());
+                logger.warn("Failed to parse Razorpay error message: {}", jsonEx.getMessage());
             }
 
-            System.err.println("[RAZORPAY ERROR] Error Code: " + errorCode);
-            System.err.println("[RAZORPAY ERROR] Status Code: " + statusCode);
-            System.err.println("[RAZORPAY ERROR] Description: " + errorDesc);
+            logger.error("Razorpay order creation failed: code {}, status {}, {}", errorCode, statusCode, errorDesc);
 
             // Build error response
             JSONObject errorResponse = new JSONObject();
@@ -191,13 +207,185 @@ public class PaymentService {
 
             return ResponseEntity.status(httpStatus).body(errorResponse.toString());
         } catch (Exception e) {
-            System.err.println("[UNEXPECTED ERROR] " + e.getMessage());
-            e.printStackTrace();
+            seatHoldService.release(seatHold);
+            concessionStockService.release(concessions);
+            logger.error("Unexpected error creating payment order", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("{\"status\":\"error\",\"message\":\"Unexpected error occurred\"}");
         }
     }
 
+    // Frees the seats and snacks of an order the customer abandoned in the checkout modal
+    public void releaseOrderHold(String orderId, String userEmail) {
+        seatHoldService.findActive(orderId)
+                .filter(hold -> hold.holder().equals(userEmail))
+                .ifPresent(hold -> seatHoldService.releaseOrder(orderId));
+        concessionStockService.releaseOrder(orderId, userEmail);
+    }
+
+    private PaymentOrder toPaymentOrder(String razorpayOrderId, OrderRequest orderRequest, String userEmail) {
+        PaymentOrder paymentOrder = new PaymentOrder();
+        paymentOrder.setRazorpayOrderId(razorpayOrderId);
+        paymentOrder.setUserEmail(userEmail);
+        paymentOrder.setMovieId(orderRequest.getMovieId());
+        paymentOrder.setTheaterId(orderRequest.getTheaterId());
+        paymentOrder.setShowtime(orderRequest.getShowtime());
+        paymentOrder.setDate(orderRequest.getDate());
+        paymentOrder.setCategory(orderRequest.getCategory());
+        paymentOrder.setSeats(joinSeats(orderRequest.getSeats()));
+        paymentOrder.setAmount(orderRequest.getAmount());
+
+        JSONArray foodItemsArray = new JSONArray();
+        if (orderRequest.getFoodItems() != null) {
+            for (FoodItemDTO item : orderRequest.getFoodItems()) {
+                JSONObject foodItemJson = new JSONObject();
+                foodItemJson.put("id", item.getId());
+                foodItemJson.put("name", item.getName());
+                foodItemJson.put("description", item.getDescription());
+                foodItemJson.put("category", item.getCategory());
+                foodItemJson.put("image", item.getImage());
+                foodItemJson.put("price", item.getPrice());
+                foodItemJson.put("quantity", item.getQuantity());
+                foodItemsArray.put(foodItemJson);
+            }
+        }
+        paymentOrder.setFoodItems(foodItemsArray.toString());
+        return paymentOrder;
+    }
+
+    // For orders created before the ledger existed: the request, with the gateway's notes
+    // filling any gaps. The order is fetched at most once, and only if something is missing.
+    private PaymentOrder orderFromRequest(PaymentVerificationRequest verificationRequest) throws RazorpayException {
+        PaymentOrder paymentOrder = new PaymentOrder();
+        paymentOrder.setRazorpayOrderId(verificationRequest.getRazorpayOrderId());
+        paymentOrder.setUserEmail(verificationRequest.getUserEmail());
+        paymentOrder.setMovieId(verificationRequest.getMovieId());
+        paymentOrder.setTheaterId(verificationRequest.getTheaterId());
+        paymentOrder.setShowtime(verificationRequest.getShowtime());
+        paymentOrder.setDate(verificationRequest.getDate());
+        paymentOrder.setCategory(verificationRequest.getCategory());
+        paymentOrder.setSeats(verificationRequest.getSeats());
+        paymentOrder.setFoodItems(verificationRequest.getFoodItems());
+        paymentOrder.setAmount(verificationRequest.getAmount());
+
+        if (paymentOrder.getUserEmail() == null
+                || isBlank(paymentOrder.getShowtime())
+                || isBlank(paymentOrder.getSeats())
+                || isBlank(paymentOrder.getFoodItems())) {
+            logger.debug("Order {} is missing ledger fields, falling back to Razorpay notes",
+                    verificationRequest.getRazorpayOrderId());
+            JSONObject notes = fetchOrderNotes(verificationRequest.getRazorpayOrderId());
+
+            if (paymentOrder.getUserEmail() == null) {
+                paymentOrder.setUserEmail(notes.optString("userId", null));
+            }
+            if (isBlank(paymentOrder.getShowtime())) {
+                paymentOrder.setShowtime(notes.getString("showtime"));
+            }
+            if (isBlank(paymentOrder.getSeats())) {
+                paymentOrder.setSeats(notes.optString("seats", ""));
+            }
+            if (isBlank(paymentOrder.getFoodItems())) {
+                paymentOrder.setFoodItems(notes.has("foodItems") ? notes.getJSONArray("foodItems").toString() : "[]");
+            }
+        }
+        if (paymentOrder.getUserEmail() == null) {
+            logger.error("User email not found in request or notes for order {}", verificationRequest.getRazorpayOrderId());
+            throw new RuntimeException("User email not found");
+        }
+        return paymentOrder;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static String joinSeats(List<String> seats) {
+        return seats == null ? "" : String.join(",", seats);
+    }
+
+    private ShowtimeKey toShowtimeKey(String movieId, String theaterId, String date, String time) {
+        if (movieId == null || theaterId == null || date == null || time == null) {
+            return null;
+        }
+        try {
+            return new ShowtimeKey(Long.parseLong(movieId), theaterId, LocalDate.parse(date), time);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Ordered quantity of each food item, by name
+    private static Map<String, Integer> foodQuantities(String foodItemsData) {
+        Map<String, Integer> quantities = new HashMap<>();
+        if (foodItemsData == null || foodItemsData.isEmpty()) {
+            return quantities;
+        }
+        JSONArray foodItems = new JSONArray(foodItemsData);
+        for (int i = 0; i < foodItems.length(); i++) {
+            JSONObject item = foodItems.getJSONObject(i);
+            quantities.merge(item.getString("name"), item.getInt("quantity"), Integer::sum);
+        }
+        return quantities;
+    }
+
+    // Food items of the order by name, from the cache or one upsert for those not seen yet
+    private Map<String, FoodItem> resolveFoodItems(String foodItemsData) {
+        if (foodItemsData == null || foodItemsData.isEmpty() || foodItemsData.equals("[]")) {
+            return Map.of();
+        }
+        JSONArray foodItems = new JSONArray(foodItemsData);
+        List<FoodItem> candidates = new ArrayList<>();
+        for (int i = 0; i < foodItems.length(); i++) {
+            JSONObject item = foodItems.getJSONObject(i);
+            FoodItem candidate = new FoodItem(item.getString("name"), item.optString("description", ""),
+                    item.getDouble("price"));
+            candidate.setImageUrl(item.optString("image", ""));
+            candidate.setIsAvailable(true);
+
+            // Handle category - convert from string to enum
+            try {
+                candidate.setCategory(FoodItem.FoodCategory.valueOf(
+                        item.optString("category", "SNACK").toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                candidate.setCategory(FoodItem.FoodCategory.SNACK); // default
+            }
+            candidates.add(candidate);
+        }
+        return foodItemCache.resolve(candidates);
+    }
+
+    private List<FoodOrder> buildFoodOrders(String foodItemsData, Map<String, FoodItem> foodItemsByName,
+                                            Booking booking) {
+        List<FoodOrder> foodOrders = new ArrayList<>();
+        if (foodItemsData == null || foodItemsData.isEmpty() || foodItemsData.equals("[]")) {
+            return foodOrders;
+        }
+
+        JSONArray foodItems = new JSONArray(foodItemsData);
+        for (int i = 0; i < foodItems.length(); i++) {
+            JSONObject item = foodItems.getJSONObject(i);
+            FoodOrder foodOrder = new FoodOrder();
+            foodOrder.setFoodItem(foodItemsByName.get(item.getString("name")));
+            foodOrder.setQuantity(item.getInt("quantity"));
+            foodOrder.setPriceAtOrder(item.getDouble("price"));
+            foodOrder.setBooking(booking);
+            foodOrders.add(foodOrder);
+        }
+        return foodOrders;
+    }
+
+    // Category from the request, falling back to the seat number prefix
+    private BookedSeat.SeatCategory resolveSeatCategory(String seatNumber, String category) {
+        if (category != null && !category.isEmpty()) {
+            return BookedSeat.SeatCategory.valueOf(category.toUpperCase());
+        }
+        if (seatNumber.startsWith("S")) return BookedSeat.SeatCategory.SILVER;
+        if (seatNumber.startsWith("G")) return BookedSeat.SeatCategory.GOLD;
+        if (seatNumber.startsWith("P")) return BookedSeat.SeatCategory.PLATINUM;
+        return BookedSeat.SeatCategory.SILVER; // default
+    }
+
     private double getSeatPrice(Showtime showtime, String seatNumber) {
         if (seatNumber.startsWith("S")) return showtime.getSilverPrice();
         if (seatNumber.startsWith("G")) return showtime.getGoldPrice();
@@ -205,260 +393,128 @@ public class PaymentService {
         return showtime.getSilverPrice(); // default
     }
 
-    @Transactional
     public ResponseEntity<?> verifyAndCompletePayment(PaymentVerificationRequest verificationRequest) {
-        try {
-            // 1. Verify payment signature
-            System.out.println("=== Starting payment verification ===");
-            System.out.println("Request data: " + new JSONObject(verificationRequest).toString());
-            System.out.println("Verifying signature...");
-            String generatedSignature = HmacUtils.hmacSha256Hex(
-                    razorpayKeySecret,
-                    verificationRequest.getRazorpayOrderId() + "|" + verificationRequest.getRazorpayPaymentId()
-            );
-
-            if (!generatedSignature.equals(verificationRequest.getRazorpaySignature())) {
-                System.err.println("Signature verification failed");
-                throw new RuntimeException("Signature verification failed");
-            }
-
-            System.out.println("Getting user email...");
-            String userEmail = verificationRequest.getUserEmail();
-            if (userEmail == null) {
-                System.out.println("Falling back to Razorpay notes for email");
-                // Fallback to Razorpay notes if needed
-                RazorpayClient razorpay = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-                Order order = razorpay.orders.fetch(verificationRequest.getRazorpayOrderId());
-                JSONObject notes = order.get("notes");
-
-                userEmail = notes.optString("userId", null);
-                if (userEmail == null) {
-                    System.err.println("User email not found in request or notes");
-                    throw new RuntimeException("User email not found");
-                }
-            }
+        // 1. Verify payment signature
+        logger.debug("Verifying payment {} for order {}",
+                verificationRequest.getRazorpayPaymentId(), verificationRequest.getRazorpayOrderId());
+        String generatedSignature = HmacUtils.hmacSha256Hex(
+                razorpayKeySecret,
+                verificationRequest.getRazorpayOrderId() + "|" + verificationRequest.getRazorpayPaymentId()
+        );
+
+        if (!generatedSignature.equals(verificationRequest.getRazorpaySignature())) {
+            logger.warn("Signature verification failed for order {}", verificationRequest.getRazorpayOrderId());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Payment verification failed: Signature verification failed"));
+        }
 
-            // 2. Get data from verification request (preferred) or Razorpay notes
-            RazorpayClient razorpay = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-            Order order = razorpay.orders.fetch(verificationRequest.getRazorpayOrderId());
-            JSONObject notes = order.get("notes");
+        // Retries of the same order collapse onto one execution and its remembered result
+        return idempotencyService.execute("verify-payment:" + verificationRequest.getRazorpayOrderId(),
+                () -> completePayment(verificationRequest));
+    }
 
+    // Books an order the gateway reports as paid when the browser never came back to verify it.
+    // Shares the idempotency key with verify-payment, so the two paths cannot both book it.
+    public ResponseEntity<?> completeCapturedPayment(PaymentOrder paymentOrder, String razorpayPaymentId) {
+        PaymentVerificationRequest verificationRequest = new PaymentVerificationRequest();
+        verificationRequest.setRazorpayOrderId(paymentOrder.getRazorpayOrderId());
+        verificationRequest.setRazorpayPaymentId(razorpayPaymentId);
+        verificationRequest.setUserEmail(paymentOrder.getUserEmail());
+        verificationRequest.setAmount(paymentOrder.getAmount());
+        return idempotencyService.execute("verify-payment:" + paymentOrder.getRazorpayOrderId(),
+                () -> completePayment(verificationRequest));
+    }
 
-            // Get showtime - prefer request but fallback to notes
-            System.out.println("Processing showtime...");
-            String showtimeId = verificationRequest.getShowtime();
-            if (showtimeId == null || showtimeId.isEmpty()) {
-                showtimeId = notes.getString("showtime");
+    private ResponseEntity<?> completePayment(PaymentVerificationRequest verificationRequest) {
+        try {
+            // An earlier attempt may already have booked this order (e.g. before a restart)
+            Optional<Booking> existingBooking = bookingRepository.findByBookingReference(verificationRequest.getRazorpayOrderId());
+            if (existingBooking.isPresent()) {
+                logger.info("Order {} already booked, returning existing booking", verificationRequest.getRazorpayOrderId());
+                return bookingConfirmed(existingBooking.get());
             }
-            System.out.println("Showtime ID: " + showtimeId);
-
-            // Get seats - prefer request but fallback to notes
-            String seatsData = verificationRequest.getSeats();
-            if (seatsData == null || seatsData.isEmpty()) {
-                seatsData = notes.optString("seats", "");
+            // ...or found it could not be booked, and recorded its payment for a refund
+            String razorpayPaymentId = verificationRequest.getRazorpayPaymentId();
+            if (razorpayPaymentId != null && !paymentRepository.findByTransactionIdIn(List.of(razorpayPaymentId)).isEmpty()) {
+                return unbookable("PAYMENT_REFUNDED", "This order could not be booked and its payment is being refunded");
             }
 
-            // Get food items - prefer request but fallback to notes
-            String foodItemsData = verificationRequest.getFoodItems();
-            if (foodItemsData == null || foodItemsData.isEmpty()) {
-                foodItemsData = notes.has("foodItems") ? notes.getJSONArray("foodItems").toString() : "[]";
+            // 2. Read what was ordered from the local ledger written at order creation
+            Optional<PaymentOrder> ledgerEntry = paymentOrderRepository.findById(verificationRequest.getRazorpayOrderId());
+            PaymentOrder paymentOrder = ledgerEntry.isPresent() ? ledgerEntry.get() : orderFromRequest(verificationRequest);
+            String userEmail = paymentOrder.getUserEmail();
+            String seatsData = paymentOrder.getSeats() != null ? paymentOrder.getSeats() : "";
+            logger.debug("Booking order {} for showtime {}", verificationRequest.getRazorpayOrderId(), paymentOrder.getShowtime());
+
+            String showtimeTime = paymentOrder.getShowtime();
+            Long movieId = Long.parseLong(paymentOrder.getMovieId());
+            String theatreId = paymentOrder.getTheaterId();
+            LocalDate showtimeDate = LocalDate.parse(paymentOrder.getDate());
+
+            // Make sure this order still owns its seats before anything is written
+            ShowtimeKey showtimeKey = new ShowtimeKey(movieId, theatreId, showtimeDate, showtimeTime);
+            List<String> requestedSeats = seatsData.isEmpty() ? List.of() :
+                    Arrays.stream(seatsData.split(",")).map(String::trim).collect(Collectors.toList());
+            SeatHoldService.SeatHold seatHold = requestedSeats.isEmpty() ? null : seatHoldService.secureForOrder(
+                    verificationRequest.getRazorpayOrderId(), showtimeKey, requestedSeats, userEmail).orElse(null);
+            if (!requestedSeats.isEmpty() && seatHold == null) {
+                return refundUnbookable(verificationRequest, paymentOrder, "SEATS_UNAVAILABLE",
+                        "One or more selected seats were booked by someone else");
             }
 
-            // 3. Create and save the booking record
-            System.out.println("Creating booking...");
-            Booking booking = new Booking();
-            booking.setBookingReference(verificationRequest.getRazorpayOrderId());
-            booking.setPaymentStatus("CONFIRMED");
-            booking.setTotalAmount(verificationRequest.getAmount());
-            booking.setBookingTime(LocalDateTime.now());
-
-            // Set user
-            System.out.println("Setting user...");
-            booking.setUser(userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new RuntimeException("User not found")));
-
-            // Set showtime
-            System.out.println("Setting showtime...");
-            String showtimeTime = verificationRequest.getShowtime();
-            Long movieId = Long.parseLong(verificationRequest.getMovieId());
-            String theatreId = verificationRequest.getTheaterId();
-            LocalDate showtimeDate = LocalDate.parse(verificationRequest.getDate());
-
-            // Try to find existing showtime
-            Optional<Showtime> existingShowtime = showtimeRepository.findByMovieIdAndTheatreIdAndDateAndTime(
-                    movieId,
-                    theatreId,
-                    showtimeDate,
-                    showtimeTime
-            );
-
-            Showtime showtime;
-            if (existingShowtime.isEmpty()) {
-                System.out.println("Creating new showtime as none exists...");
-                showtime = new Showtime();
-
-                // Just store the IDs directly
-                showtime.setMovieId(movieId);
-                showtime.setTheatreId(theatreId);
-
-                showtime.setDate(showtimeDate);
-                showtime.setTime(showtimeTime);
-
-                // Set default values
-                showtime.setSilverPrice(140.0);
-                showtime.setGoldPrice(170.0);
-                showtime.setPlatinumPrice(210.0);
-                showtime.setSilverSeatsAvailable(40);
-                showtime.setGoldSeatsAvailable(20);
-                showtime.setPlatinumSeatsAvailable(10);
-
-                showtime = showtimeRepository.save(showtime);
-                System.out.println("New showtime created with ID: " + showtime.getId());
-            } else {
-                showtime = existingShowtime.get();
-            }
+            // Food items are reference data: resolved, and created if new, ahead of the booking transaction
+            Map<String, FoodItem> foodItemsByName = resolveFoodItems(paymentOrder.getFoodItems());
 
-            booking.setShowtime(showtime);
-
-
-            System.out.println("Saving booking...");
-            booking = bookingRepository.save(booking);
-
-            // 2. Create and save payment
-            Payment payment = new Payment();
-            payment.setAmount(booking.getTotalAmount());
-            payment.setCurrency("INR");
-            payment.setMethod(Payment.PaymentMethod.RAZORPAY);
-            payment.setStatus(Payment.PaymentStatus.SUCCESSFUL);
-            payment.setTransactionId(verificationRequest.getRazorpayPaymentId());
-            payment.setPaymentTime(LocalDateTime.now());
-            System.out.println("came this much...");
-            payment.setBooking(booking);
-            System.out.println("Saving payment...");
-            payment = paymentRepository.save(payment);
-
-            // 3. Update booking with payment reference
-            booking.setPayment(payment);
-            booking.setPaymentId(payment.getId().toString());
-            System.out.println("Saving booking with payment id...");
-            booking = bookingRepository.save(booking);
-
-            // 5. Save booked seats
-            if (!seatsData.isEmpty()) {
-                String[] seatNumbers = seatsData.split(",");
-                String category = verificationRequest.getCategory(); // Get category from request
-
-                for (String seatNumber : seatNumbers) {
-                    BookedSeat seat = new BookedSeat();
-                    seat.setSeatNumber(seatNumber.trim());
-                    seat.setPrice(getSeatPrice(showtime, seatNumber.trim()));
-                    seat.setBooking(booking);
-
-                    // Set the category based on request or seat number
-                    if (category != null && !category.isEmpty()) {
-                        seat.setCategory(BookedSeat.SeatCategory.valueOf(category.toUpperCase()));
-                    } else {
-                        // Fallback to determining category from seat number
-                        if (seatNumber.trim().startsWith("S")) {
-                            seat.setCategory(BookedSeat.SeatCategory.SILVER);
-                        } else if (seatNumber.trim().startsWith("G")) {
-                            seat.setCategory(BookedSeat.SeatCategory.GOLD);
-                        } else if (seatNumber.trim().startsWith("P")) {
-                            seat.setCategory(BookedSeat.SeatCategory.PLATINUM);
-                        } else {
-                            seat.setCategory(BookedSeat.SeatCategory.SILVER); // default
-                        }
-                    }
-
-                    System.out.println("Saving Seats...");
-                    bookedSeatRepository.save(seat);
-                }
+            ConcessionStockService.Reservation concessions = concessionStockService.secureForOrder(
+                    verificationRequest.getRazorpayOrderId(), ConcessionStockService.Slot.of(showtimeKey),
+                    foodQuantities(paymentOrder.getFoodItems()), userEmail).orElse(null);
+            if (concessions == null) {
+                seatHoldService.release(seatHold);
+                return refundUnbookable(verificationRequest, paymentOrder, "CONCESSIONS_UNAVAILABLE",
+                        "One or more food items sold out for this show");
             }
 
-            // 6. Save food orders
-            if (!foodItemsData.equals("[]")) {
-                JSONArray foodItems = new JSONArray(foodItemsData);
-                for (int i = 0; i < foodItems.length(); i++) {
-                    JSONObject item = foodItems.getJSONObject(i);
-
-                    // First try to find food item by name (since ID might not exist in DB)
-                    String foodName = item.getString("name");
-                    Optional<FoodItem> existingFoodItem = foodItemRepository.findByName(foodName);
-                    FoodItem foodItem;
-
-                    if (existingFoodItem.isPresent()) {
-                        foodItem = existingFoodItem.get();
-                    } else {
-                        // Create new food item if it doesn't exist
-                        foodItem = new FoodItem();
-                        foodItem.setName(foodName);
-                        foodItem.setDescription(item.getString("description"));
-                        foodItem.setPrice(item.getDouble("price"));
-                        foodItem.setImageUrl(item.getString("image"));
-                        foodItem.setIsAvailable(true);
-
-                        // Handle category - convert from string to enum
-                        try {
-                            foodItem.setCategory(FoodItem.FoodCategory.valueOf(
-                                    item.getString("category").toUpperCase()));
-                        } catch (IllegalArgumentException e) {
-                            foodItem.setCategory(FoodItem.FoodCategory.SNACK); // default
-                        }
-
-                        foodItem = foodItemRepository.save(foodItem);
-                        System.out.println("Created new food item: " + foodItem.getName());
-                    }
-
-                    // Create food order
-                    FoodOrder foodOrder = new FoodOrder();
-                    foodOrder.setFoodItem(foodItem);
-                    foodOrder.setQuantity(item.getInt("quantity"));
-                    foodOrder.setPriceAtOrder(item.getDouble("price"));
-                    foodOrder.setBooking(booking);
-
-                    System.out.println("Saving food order for: " + foodItem.getName());
-                    foodOrderRepository.save(foodOrder);
+            // 3. Write the booking in one short transaction. The ticket is queued in the same
+            // transaction and rendered and emailed by the outbox workers after it commits
+            Booking booking = null;
+            try {
+                booking = meterRegistry.timer("booking.commit").record(() ->
+                        transactionTemplate.execute(status -> {
+                            Booking saved = saveBooking(verificationRequest, paymentOrder, showtimeKey, requestedSeats,
+                                    foodItemsByName);
+                            if (saved == null) {
+                                status.setRollbackOnly();
+                            } else {
+                                seatHoldService.completeAfterCommit(seatHold);
+                                concessionStockService.commitAfterCommit(concessions);
+                            }
+                            return saved;
+                        }));
+            } catch (DataIntegrityViolationException e) {
+                // Lost a race with another instance verifying the same order
+                Optional<Booking> winner = bookingRepository.findByBookingReference(verificationRequest.getRazorpayOrderId());
+                if (winner.isEmpty()) {
+                    throw e;
+                }
+                return bookingConfirmed(winner.get());
+            } finally {
+                if (booking == null) {
+                    seatHoldService.release(seatHold);
+                    concessionStockService.release(concessions);
                 }
             }
 
-            try {
-                List<BookedSeat> bookedSeats = bookedSeatRepository.findByBookingId(booking.getId());
-                List<FoodOrder> foodOrders = foodOrderRepository.findByBookingId(booking.getId());
-
-                Map<String, Object> movieDetails = fetchMovieDetails(showtime.getMovieId().toString());
-                Map<String, Object> theaterDetails = fetchTheaterDetails(showtime.getTheatreId());
-
-                byte[] ticketPdf = ticketService.generateTicketPdf(
-                        booking, showtime, bookedSeats, foodOrders, movieDetails, theaterDetails);
-
-                // Properly construct the email content with theater details
-                String theaterName = theaterDetails != null ? extractTheaterName(theaterDetails) : "Unknown Theater";
-
-                String emailContent = "<p>Thank you for your booking! Your ticket details:</p>"
-                        + "<p><strong>Movie:</strong> " + movieDetails.get("title") + "</p>"
-                        + "<p><strong>Theater:</strong> " + theaterName + "</p>"
-                        + "<p><strong>Date:</strong> " + showtime.getDate() + "</p>"
-                        + "<p><strong>Time:</strong> " + showtime.getTime() + "</p>"
-                        + "<p><strong>Seats:</strong> " + bookedSeats.stream()
-                        .map(BookedSeat::getSeatNumber)
-                        .collect(Collectors.joining(", ")) + "</p>";
-
-                emailService.sendTicketEmail(
-                        userEmail,
-                        "Your MovieFlix Ticket #" + booking.getBookingReference(),
-                        emailContent,
-                        ticketPdf
-                );
-            } catch (Exception e) {
-                // Log error but don't fail the payment
-                System.err.println("Failed to generate/send ticket: " + e.getMessage());
+            if (booking == null) {
+                if (showtimeRepository.existsByMovieIdAndTheatreIdAndDateAndTimeAndCancelledTrue(
+                        movieId, theatreId, showtimeDate, showtimeTime)) {
+                    return refundUnbookable(verificationRequest, paymentOrder, "SHOWTIME_CANCELLED",
+                            "This show has been cancelled");
+                }
+                return refundUnbookable(verificationRequest, paymentOrder, "SOLD_OUT",
+                        "Not enough seats left in the selected category");
             }
 
-            return ResponseEntity.ok(Map.of(
-                    "status", "success",
-                    "bookingId", booking.getId(),
-                    "redirectUrl", "/booking-success?bookingId=" + verificationRequest.getRazorpayOrderId()
-            ));
+            return bookingConfirmed(booking);
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -466,6 +522,159 @@ public class PaymentService {
         }
     }
 
+    /**
+     * The gateway has already taken the money for an order that can no longer be
+     * booked. Its payment is recorded without a booking, as REFUND_PENDING, so
+     * the refund engine pays it back in full; a retry finds the payment and
+     * does not record it twice.
+     */
+    private ResponseEntity<?> refundUnbookable(PaymentVerificationRequest verificationRequest,
+                                               PaymentOrder paymentOrder, String code, String message) {
+        String razorpayPaymentId = verificationRequest.getRazorpayPaymentId();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (paymentRepository.findByTransactionIdIn(List.of(razorpayPaymentId)).isEmpty()) {
+                Payment payment = new Payment();
+                payment.setAmount(paymentOrder.getAmount());
+                payment.setCurrency("INR");
+                payment.setMethod(Payment.PaymentMethod.RAZORPAY);
+                payment.setStatus(Payment.PaymentStatus.REFUND_PENDING);
+                payment.setTransactionId(razorpayPaymentId);
+                paymentRepository.save(payment);
+                refundService.processAfterCommit();
+            }
+        });
+        logger.warn("Order {} was paid but cannot be booked ({}), refunding payment {}",
+                verificationRequest.getRazorpayOrderId(), code, razorpayPaymentId);
+        meterRegistry.counter("payments.unbookable", "reason", code).increment();
+        return unbookable(code, message);
+    }
+
+    private static ResponseEntity<?> unbookable(String code, String message) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "status", "error",
+                "code", code,
+                "error", message,
+                "refundStatus", Payment.PaymentStatus.REFUND_PENDING.name()
+        ));
+    }
+
+    private ResponseEntity<?> bookingConfirmed(Booking booking) {
+        return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "bookingId", booking.getId(),
+                "redirectUrl", "/booking-success?bookingId=" + booking.getBookingReference()
+        ));
+    }
+
+    // Runs inside the booking transaction. Returns null when a seat category is sold out
+    // or the show has been cancelled.
+    private Booking saveBooking(PaymentVerificationRequest verificationRequest, PaymentOrder paymentOrder,
+                                ShowtimeKey showtimeKey, List<String> requestedSeats,
+                                Map<String, FoodItem> foodItemsByName) {
+        Booking booking = new Booking();
+        booking.setBookingReference(verificationRequest.getRazorpayOrderId());
+        booking.setPaymentStatus("CONFIRMED");
+        booking.setTotalAmount(paymentOrder.getAmount());
+        booking.setBookingTime(LocalDateTime.now());
+
+        // Set user
+        booking.setUser(userRepository.findByEmail(paymentOrder.getUserEmail())
+                .orElseThrow(() -> new RuntimeException("User not found")));
+
+        // Set showtime
+        Optional<Showtime> existingShowtime = showtimeRepository.findByMovieIdAndTheatreIdAndDateAndTime(
+                showtimeKey.movieId(),
+                showtimeKey.theatreId(),
+                showtimeKey.date(),
+                showtimeKey.time()
+        );
+
+        Showtime showtime;
+        if (existingShowtime.isEmpty()) {
+            showtime = new Showtime();
+
+            // Just store the IDs directly
+            showtime.setMovieId(showtimeKey.movieId());
+            showtime.setTheatreId(showtimeKey.theatreId());
+
+            showtime.setDate(showtimeKey.date());
+            showtime.setTime(showtimeKey.time());
+
+            // Set default values
+            showtime.setSilverPrice(140.0);
+            showtime.setGoldPrice(170.0);
+            showtime.setPlatinumPrice(210.0);
+            showtime.setSilverSeatsAvailable(40);
+            showtime.setGoldSeatsAvailable(20);
+            showtime.setPlatinumSeatsAvailable(10);
+
+            showtime = showtimeRepository.save(showtime);
+            logger.info("Created showtime {} for {}", showtime.getId(), showtimeKey);
+        } else {
+            showtime = existingShowtime.get();
+        }
+
+        if (showtime.isCancelled()) {
+            logger.warn("Showtime {} has been cancelled", showtime.getId());
+            return null;
+        }
+        booking.setShowtime(showtime);
+
+        // Take the seats off the showtime's category counters in the same transaction
+        String category = paymentOrder.getCategory();
+        List<BookedSeat.SeatCategory> seatCategories = requestedSeats.stream()
+                .map(seatNumber -> resolveSeatCategory(seatNumber, category))
+                .collect(Collectors.toList());
+        if (!showtimeAvailabilityService.reserve(showtime, seatCategories)) {
+            logger.warn("Category sold out for showtime {}", showtime.getId());
+            return null;
+        }
+
+        // 4. Build the whole aggregate in memory; IDs come from pooled sequences, so
+        // nothing is written until flush, where each table gets one batched insert
+        Payment payment = new Payment();
+        payment.setAmount(booking.getTotalAmount());
+        payment.setCurrency("INR");
+        payment.setMethod(Payment.PaymentMethod.RAZORPAY);
+        payment.setStatus(Payment.PaymentStatus.SUCCESSFUL);
+        payment.setTransactionId(verificationRequest.getRazorpayPaymentId());
+        payment.setPaymentTime(LocalDateTime.now());
+        payment.setBooking(booking);
+
+        List<BookedSeat> bookedSeats = new ArrayList<>();
+        for (String seatNumber : requestedSeats) {
+            BookedSeat seat = new BookedSeat();
+            seat.setSeatNumber(seatNumber);
+            seat.setPrice(getSeatPrice(showtime, seatNumber));
+            seat.setBooking(booking);
+            seat.setCategory(resolveSeatCategory(seatNumber, category));
+            bookedSeats.add(seat);
+        }
+
+        List<FoodOrder> foodOrders = buildFoodOrders(paymentOrder.getFoodItems(), foodItemsByName, booking);
+
+        booking.setSeats(bookedSeats);
+        booking.setFoodOrders(foodOrders);
+
+        logger.debug("Saving booking {} with {} seats and {} food orders",
+                booking.getBookingReference(), bookedSeats.size(), foodOrders.size());
+        payment = paymentRepository.save(payment);
+        booking.setPayment(payment);
+        booking = bookingRepository.save(booking);
+
+        if (!bookedSeats.isEmpty()) {
+            seatInventoryService.markBookedAfterCommit(ShowtimeKey.of(showtime), requestedSeats);
+        }
+        outboxService.enqueue(TicketFulfilmentService.TYPE, booking.getId());
+        outboxService.enqueue(BookingViewService.TYPE, booking.getId());
+        return booking;
+    }
+
+    private JSONObject fetchOrderNotes(String orderId) throws RazorpayException {
+        Order order = razorpayGateway.fetchOrder(orderId);
+        return order.get("notes");
+    }
+
     // Inner classes to match your DTOs
     public static class OrderRequest {
         private double amount;
@@ -623,33 +832,4 @@ public class PaymentService {
         }
     }
 
-    private Map<String, Object> fetchMovieDetails(String movieId) {
-        String movieUrl = String.format(
-                "https://api.themoviedb.org/3/movie/%s?api_key=%s&language=en-US",
-                movieId, tmdbApiKey);
-        return restTemplate.getForObject(movieUrl, Map.class);
-    }
-
-    private Map<String, Object> fetchTheaterDetails(String theaterId) {
-        String theaterUrl = String.format(
-                "https://places.googleapis.com/v1/places/%s?key=%s",
-                theaterId, googleApiKey);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Goog-FieldMask", "displayName,formattedAddress,rating");
-        return restTemplate.exchange(
-                theaterUrl,
-                HttpMethod.GET,
-                new HttpEntity<>(headers),
-                Map.class
-        ).getBody();
-    }
-
-    private String extractTheaterName(Map<String, Object> theaterDetails) {
-        if (theaterDetails.get("displayName") == null) {
-            return "Unknown Theatre";
-        }
-        return ((Map<String, Object>) theaterDetails.get("displayName")).get("text").toString();
-    }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.Place;
+import com.movieticketbooking.movieflix.dto.PlaceSearchResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Google Places (New) lookups for theatres.
+ *
+ * Responses are bound straight to {@link Place} through the shared RestTemplate,
+ * so the JSON is parsed once into the fields the app reads. The field mask sent
+ * with each call keeps Google from returning anything else.
+ */
+@Service
+public class PlacesClient {
+
+    private static final String BASE_URL = "https://places.googleapis.com/v1/";
+    private static final String NEARBY_FIELDS =
+            "places.displayName,places.id,places.formattedAddress,places.rating,places.location";
+    public static final String DETAILS_FIELDS = "displayName,formattedAddress,rating,location";
+
+    private final RestTemplate restTemplate;
+
+    @Value("${google.api.key}")
+    private String googleApiKey;
+
+    public PlacesClient(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    public List<Place> nearbyTheatres(double lat, double lon, double radiusMeters) {
+        Map<String, Object> request = Map.of(
+                "includedTypes", List.of("movie_theater"),
+                "locationRestriction", Map.of("circle", Map.of(
+                        "center", Map.of("latitude", lat, "longitude", lon),
+                        "radius", radiusMeters)));
+
+        PlaceSearchResponse response = restTemplate.exchange(
+                BASE_URL + "places:searchNearby?key=" + googleApiKey,
+                HttpMethod.POST,
+                new HttpEntity<>(request, headers(NEARBY_FIELDS)),
+                PlaceSearchResponse.class
+        ).getBody();
+        return response != null && response.places() != null ? response.places() : List.of();
+    }
+
+    public Place getPlace(String placeId, String fieldMask) {
+        return restTemplate.exchange(
+                BASE_URL + "places/" + placeId + "?key=" + googleApiKey,
+                HttpMethod.GET,
+                new HttpEntity<>(headers(fieldMask)),
+                Place.class
+        ).getBody();
+    }
+
+    private static HttpHeaders headers(String fieldMask) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Goog-FieldMask", fieldMask);
+        return headers;
+    }
+}
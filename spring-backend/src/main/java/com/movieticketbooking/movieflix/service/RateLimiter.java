@@ -0,0 +1,27 @@
+package com.movieticketbooking.movieflix.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Spaces calls evenly so that no more than the given number start per second
+final class RateLimiter {
+
+    private final long intervalNanos;
+    private long nextFreeSlot = System.nanoTime();
+
+    RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    void acquire() {
+        long slot;
+        synchronized (this) {
+            slot = Math.max(nextFreeSlot, System.nanoTime());
+            nextFreeSlot = slot + intervalNanos;
+        }
+        long remaining;
+        while ((remaining = slot - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
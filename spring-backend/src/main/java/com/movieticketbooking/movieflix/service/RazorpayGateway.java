@@ -0,0 +1,175 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.razorpay.Order;
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import com.razorpay.Refund;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The one place that talks to Razorpay.
+ *
+ * Every call goes through the shared {@link RazorpayClient} (and so through the
+ * SDK's pooled, time-limited HTTP client), a bulkhead that caps how many request
+ * threads can be waiting on the gateway at once, and a circuit breaker that
+ * fails fast after repeated gateway failures instead of letting each request
+ * sit out its timeout. Latency is recorded per operation and outcome.
+ */
+@Service
+public class RazorpayGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(RazorpayGateway.class);
+
+    private final RazorpayClient razorpayClient;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitMs;
+    private final int failureThreshold;
+    private final long openMs;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openUntil = new AtomicLong();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+    public RazorpayGateway(RazorpayClient razorpayClient,
+                           MeterRegistry meterRegistry,
+                           @Value("${razorpay.bulkhead.max-concurrent:16}") int maxConcurrent,
+                           @Value("${razorpay.bulkhead.max-wait-ms:500}") long bulkheadWaitMs,
+                           @Value("${razorpay.circuit.failure-threshold:5}") int failureThreshold,
+                           @Value("${razorpay.circuit.open-ms:30000}") long openMs) {
+        this.razorpayClient = razorpayClient;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.bulkheadWaitMs = bulkheadWaitMs;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        Gauge.builder("razorpay.circuit.open", () -> isOpen() ? 1 : 0)
+                .description("1 while calls to Razorpay are short-circuited")
+                .register(meterRegistry);
+        Gauge.builder("razorpay.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    public Order createOrder(JSONObject request) throws RazorpayException {
+        return call("orders.create", () -> razorpayClient.orders.create(request));
+    }
+
+    public Order fetchOrder(String orderId) throws RazorpayException {
+        return call("orders.fetch", () -> razorpayClient.orders.fetch(orderId));
+    }
+
+    public Refund refund(String paymentId, JSONObject request) throws RazorpayException {
+        return call("payments.refund", () -> razorpayClient.payments.refund(paymentId, request));
+    }
+
+    public List<Refund> fetchRefunds(String paymentId) throws RazorpayException {
+        return call("payments.fetchAllRefunds", () -> razorpayClient.payments.fetchAllRefunds(paymentId));
+    }
+
+    @FunctionalInterface
+    private interface GatewayCall<T> {
+        T execute() throws RazorpayException;
+    }
+
+    private <T> T call(String operation, GatewayCall<T> gatewayCall) throws RazorpayException {
+        boolean trial = false;
+        if (isOpen()) {
+            // Once the open period is over, let a single call through to probe the gateway
+            if (System.currentTimeMillis() < openUntil.get() || !trialInFlight.compareAndSet(false, true)) {
+                timer(operation, "short_circuited").record(0, TimeUnit.NANOSECONDS);
+                throw new GatewayUnavailableException("GATEWAY_UNAVAILABLE:Payment gateway is temporarily unavailable");
+            }
+            trial = true;
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            if (trial) {
+                trialInFlight.set(false);
+            }
+            timer(operation, "rejected").record(0, TimeUnit.NANOSECONDS);
+            throw new GatewayUnavailableException("GATEWAY_BUSY:Payment gateway is busy, please retry");
+        }
+
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            T result = gatewayCall.execute();
+            onSuccess();
+            return result;
+        } catch (RazorpayException e) {
+            if (isClientError(e)) {
+                // The gateway answered; the request was wrong. That says nothing about its health.
+                outcome = "client_error";
+                onSuccess();
+            } else {
+                outcome = "error";
+                onFailure(operation, e);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = "error";
+            onFailure(operation, e);
+            throw e;
+        } finally {
+            timer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            bulkhead.release();
+            if (trial) {
+                trialInFlight.set(false);
+            }
+        }
+    }
+
+    private boolean isOpen() {
+        return openUntil.get() != 0;
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (openUntil.getAndSet(0) != 0) {
+            logger.info("Razorpay circuit closed");
+        }
+    }
+
+    private void onFailure(String operation, Exception e) {
+        logger.warn("Razorpay {} failed: {}", operation, e.getMessage());
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || isOpen()) {
+            openUntil.set(System.currentTimeMillis() + openMs);
+            logger.warn("Razorpay circuit open for {} ms after {} consecutive failures", openMs, consecutiveFailures.get());
+        }
+    }
+
+    // API errors come back as "CODE:description"; BAD_REQUEST_ERROR is the caller's fault
+    private static boolean isClientError(RazorpayException e) {
+        return e.getMessage() != null && e.getMessage().startsWith("BAD_REQUEST_ERROR");
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("razorpay.requests")
+                .description("Razorpay API call latency")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
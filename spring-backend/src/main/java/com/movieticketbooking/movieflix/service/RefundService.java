@@ -0,0 +1,286 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.models.Payment;
+import com.movieticketbooking.movieflix.models.Refund;
+import com.movieticketbooking.movieflix.repository.PaymentRepository;
+import com.movieticketbooking.movieflix.repository.RefundRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Issues gateway refunds for payments left in REFUND_PENDING by cancellations.
+ *
+ * Pending payments are walked in id order a page at a time. Each page is
+ * claimed in one short transaction that marks its refunds SUBMITTING, then
+ * submitted to Razorpay concurrently under a rate limit, and the outcomes are
+ * written back in one more transaction. A refund that has been tried before,
+ * whether it failed or was left SUBMITTING by a crash, is only resubmitted
+ * after checking the gateway for a refund already made, so neither a timeout
+ * nor a restart refunds a payment twice.
+ *
+ * A claim is a lease: it lapses if the refund is not sent in time, and is
+ * renewed right before each gateway call. A page can take longer to get through
+ * than the lease, so a refund whose claim has been taken over by another
+ * instance in the meantime is skipped rather than sent a second time.
+ */
+@Service
+public class RefundService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefundService.class);
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final PaymentRepository paymentRepository;
+    private final RefundRepository refundRepository;
+    private final RazorpayGateway razorpayGateway;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter rateLimiter;
+    private final Semaphore inFlight;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${refund.page-size:500}")
+    private int pageSize;
+
+    @Value("${refund.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${refund.submit-lease-seconds:120}")
+    private long submitLeaseSeconds;
+
+    public RefundService(PaymentRepository paymentRepository,
+                         RefundRepository refundRepository,
+                         RazorpayGateway razorpayGateway,
+                         TransactionTemplate transactionTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${refund.rate-per-second:20}") double ratePerSecond,
+                         @Value("${refund.concurrency:8}") int concurrency) {
+        this.paymentRepository = paymentRepository;
+        this.refundRepository = refundRepository;
+        this.razorpayGateway = razorpayGateway;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+        this.inFlight = new Semaphore(concurrency);
+    }
+
+    private record ClaimedRefund(Refund refund, boolean reconcile) {}
+
+    private record ClaimedPage(int scanned, long lastPaymentId, List<ClaimedRefund> refunds) {}
+
+    // Starts a run once the current transaction commits instead of waiting for the next poll
+    public void processAfterCommit() {
+        TransactionCallbacks.afterCommit(() -> executor.execute(this::processPendingRefunds));
+    }
+
+    // A run can take minutes after a bulk cancellation, so it never holds the scheduler thread
+    @Scheduled(fixedDelayString = "${refund.poll-interval-ms:10000}")
+    public void poll() {
+        if (!running.get()) {
+            executor.execute(this::processPendingRefunds);
+        }
+    }
+
+    private void processPendingRefunds() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long afterId = 0;
+            ClaimedPage page;
+            do {
+                page = claimPage(afterId);
+                afterId = page.lastPaymentId();
+                if (!page.refunds().isEmpty()) {
+                    recordOutcomes(submitAll(page.refunds()));
+                }
+            } while (page.scanned() == pageSize);
+        } catch (Exception e) {
+            logger.error("Refund run stopped: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ClaimedPage claimPage(long afterId) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Payment> payments = paymentRepository.lockRefundable(
+                    afterId, now, now.minusSeconds(submitLeaseSeconds), pageSize);
+            if (payments.isEmpty()) {
+                return new ClaimedPage(0, afterId, List.of());
+            }
+
+            Map<Long, Refund> existing = refundRepository.findByPaymentIdIn(
+                            payments.stream().map(Payment::getId).toList()).stream()
+                    .collect(Collectors.toMap(refund -> refund.getPayment().getId(), Function.identity()));
+
+            List<ClaimedRefund> claimed = new ArrayList<>(payments.size());
+            for (Payment payment : payments) {
+                Refund refund = existing.get(payment.getId());
+                if (refund == null) {
+                    refund = new Refund(payment);
+                }
+                // Any earlier attempt may have reached the gateway, even one that failed with a
+                // timeout or one still SUBMITTING because it never reported back
+                boolean reconcile = refund.getAttempts() > 0;
+                refund.setStatus(Refund.Status.SUBMITTING);
+                refund.setAttempts(refund.getAttempts() + 1);
+                refund.setUpdatedAt(now);
+                claimed.add(new ClaimedRefund(refund, reconcile));
+            }
+            refundRepository.saveAll(claimed.stream().map(ClaimedRefund::refund).toList());
+            return new ClaimedPage(payments.size(), payments.get(payments.size() - 1).getId(), claimed);
+        });
+    }
+
+    private List<Refund> submitAll(List<ClaimedRefund> claimed) throws InterruptedException {
+        List<Future<Refund>> futures = new ArrayList<>(claimed.size());
+        for (ClaimedRefund claim : claimed) {
+            inFlight.acquire();
+            futures.add(executor.submit(() -> {
+                try {
+                    return submit(claim);
+                } finally {
+                    inFlight.release();
+                }
+            }));
+        }
+
+        List<Refund> outcomes = new ArrayList<>(claimed.size());
+        for (Future<Refund> future : futures) {
+            try {
+                Refund outcome = future.get();
+                // Null when the claim was lost to another worker, whose outcome counts instead
+                if (outcome != null) {
+                    outcomes.add(outcome);
+                }
+            } catch (Exception e) {
+                // submit() handles its own failures; the refund stays SUBMITTING and is reconciled later
+                logger.error("Refund task failed unexpectedly: {}", e.getMessage());
+            }
+        }
+        return outcomes;
+    }
+
+    private Refund submit(ClaimedRefund claim) {
+        Refund refund = claim.refund();
+        try {
+            JSONObject gatewayRefund = null;
+            if (claim.reconcile()) {
+                gatewayRefund = findExistingRefund(refund);
+            }
+            if (gatewayRefund == null) {
+                rateLimiter.acquire();
+                if (!renewLease(refund)) {
+                    return null;
+                }
+                JSONObject request = new JSONObject();
+                request.put("amount", refund.getAmountPaise());
+                request.put("speed", "normal");
+                request.put("receipt", "refund_" + refund.getId());
+                gatewayRefund = razorpayGateway.refund(refund.getRazorpayPaymentId(), request).toJson();
+            }
+
+            refund.setRazorpayRefundId(gatewayRefund.optString("id", null));
+            refund.setStatus("processed".equals(gatewayRefund.optString("status"))
+                    ? Refund.Status.PROCESSED
+                    : Refund.Status.SUBMITTED);
+            refund.setLastError(null);
+            meterRegistry.counter("refunds.submitted", "outcome", "success").increment();
+        } catch (Exception e) {
+            fail(refund, e);
+        }
+        refund.setUpdatedAt(LocalDateTime.now());
+        return refund;
+    }
+
+    private JSONObject findExistingRefund(Refund refund) throws Exception {
+        rateLimiter.acquire();
+        if (!renewLease(refund)) {
+            return null;
+        }
+        for (com.razorpay.Refund existing : razorpayGateway.fetchRefunds(refund.getRazorpayPaymentId())) {
+            JSONObject json = existing.toJson();
+            if (!"failed".equals(json.optString("status"))) {
+                logger.info("Refund for payment {} was already made ({}), recording it",
+                        refund.getRazorpayPaymentId(), json.optString("id"));
+                return json;
+            }
+        }
+        return null;
+    }
+
+    private boolean renewLease(Refund refund) {
+        if (refundRepository.renewLease(refund.getId(), refund.getAttempts(), LocalDateTime.now()) == 1) {
+            return true;
+        }
+        logger.info("Refund for payment {} was claimed by another worker, leaving it to them",
+                refund.getRazorpayPaymentId());
+        return false;
+    }
+
+    private void fail(Refund refund, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        refund.setLastError(error);
+        if (refund.getAttempts() >= maxAttempts) {
+            refund.setStatus(Refund.Status.FAILED);
+            logger.error("Giving up refunding payment {} after {} attempts: {}",
+                    refund.getRazorpayPaymentId(), refund.getAttempts(), error);
+            meterRegistry.counter("refunds.submitted", "outcome", "failed").increment();
+            return;
+        }
+        Duration backoff = Duration.ofMinutes(1).multipliedBy(1L << Math.min(refund.getAttempts() - 1, 16));
+        if (backoff.compareTo(MAX_BACKOFF) > 0) {
+            backoff = MAX_BACKOFF;
+        }
+        refund.setStatus(Refund.Status.PENDING);
+        refund.setNextAttemptAt(LocalDateTime.now().plus(backoff));
+        logger.warn("Refund for payment {} failed, retrying in {}m: {}",
+                refund.getRazorpayPaymentId(), backoff.toMinutes(), error);
+        meterRegistry.counter("refunds.submitted", "outcome", "retry").increment();
+    }
+
+    private void recordOutcomes(List<Refund> outcomes) {
+        List<Long> refundedPayments = outcomes.stream()
+                .filter(refund -> refund.getStatus() == Refund.Status.PROCESSED)
+                .map(refund -> refund.getPayment().getId())
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            refundRepository.saveAll(outcomes);
+            if (!refundedPayments.isEmpty()) {
+                paymentRepository.updateStatus(refundedPayments, Payment.PaymentStatus.REFUNDED);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Refund submissions did not finish before shutdown");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.movieticketbooking.movieflix.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compact, thread-safe set of seat labels for a single show.
+ *
+ * Labels follow the seat grid used by the frontend ("A1" .. "G10"): a row letter
+ * followed by a 1-based column. Every such label maps to one bit, so a full
+ * auditorium fits in a handful of longs. Anything that does not fit the grid is
+ * kept in a small overflow set so no label is ever dropped.
+ */
+public final class SeatBitmap {
+
+    static final int ROWS = 26;          // 'A' .. 'Z'
+    static final int COLUMNS = 10;       // seats per row in the seat grid
+    private static final int CAPACITY = ROWS * COLUMNS;
+
+    private final AtomicLongArray words = new AtomicLongArray((CAPACITY + 63) / 64);
+    private final Set<String> overflow = ConcurrentHashMap.newKeySet();
+
+    public SeatBitmap() {}
+
+    public SeatBitmap(Collection<String> seats) {
+        seats.forEach(this::add);
+    }
+
+    // Returns true if the seat was not already set
+    public boolean add(String seat) {
+        int index = indexOf(seat);
+        if (index < 0) {
+            return overflow.add(seat.trim());
+        }
+        int word = index >>> 6;
+        long mask = 1L << (index & 63);
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    // Returns true if the seat was set
+    public boolean remove(String seat) {
+        int index = indexOf(seat);
+        if (index < 0) {
+            return overflow.remove(seat.trim());
+        }
+        int word = index >>> 6;
+        long mask = 1L << (index & 63);
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) == 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current & ~mask)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(String seat) {
+        int index = indexOf(seat);
+        if (index < 0) {
+            return overflow.contains(seat.trim());
+        }
+        return (words.get(index >>> 6) & (1L << (index & 63))) != 0;
+    }
+
+    public int size() {
+        int count = overflow.size();
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    public List<String> toSeatList() {
+        List<String> seats = new ArrayList<>();
+        for (int i = 0; i < words.length(); i++) {
+            long word = words.get(i);
+            while (word != 0) {
+                int index = (i << 6) + Long.numberOfTrailingZeros(word);
+                seats.add(labelOf(index));
+                word &= word - 1;
+            }
+        }
+        seats.addAll(overflow);
+        return seats;
+    }
+
+    // Maps "B7" to its bit position, or -1 when the label is outside the grid
+    static int indexOf(String seat) {
+        if (seat == null) {
+            return -1;
+        }
+        String label = seat.trim();
+        if (label.length() < 2 || label.length() > 3) {
+            return -1;
+        }
+        char row = label.charAt(0);
+        if (row < 'A' || row > 'Z') {
+            return -1;
+        }
+        int column = 0;
+        for (int i = 1; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            column = column * 10 + (c - '0');
+        }
+        if (column < 1 || column > COLUMNS || (label.length() == 3 && label.charAt(1) == '0')) {
+            return -1;
+        }
+        return (row - 'A') * COLUMNS + (column - 1);
+    }
+
+    static String labelOf(int index) {
+        return String.valueOf((char) ('A' + index / COLUMNS)) + (index % COLUMNS + 1);
+    }
+}
@@ -0,0 +1,254 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.ShowtimeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Time-limited seat reservations taken when a payment order is created.
+ *
+ * Seats are claimed one at a time with compare-and-set semantics on a per-show
+ * map, so concurrent checkouts for the same show only contend on the individual
+ * seats they share and never on a global lock. A claim is all-or-nothing: if any
+ * seat is sold or held by someone else the seats taken so far are rolled back.
+ * Expired holds are treated as free by new claims and swept periodically.
+ * Cancelled shows cannot be claimed, and their holds are dropped.
+ */
+@Service
+public class SeatHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatHoldService.class);
+
+    private final SeatInventoryService seatInventoryService;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final ConcurrentMap<ShowtimeKey, ConcurrentMap<String, SeatHold>> holdsByShow = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SeatHold> holdsByOrder = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SeatHoldService(SeatInventoryService seatInventoryService,
+                           @Value("${booking.seat-hold.ttl-seconds:600}") long ttlSeconds) {
+        this(seatInventoryService, Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+    }
+
+    SeatHoldService(SeatInventoryService seatInventoryService, Duration ttl, Clock clock) {
+        this.seatInventoryService = seatInventoryService;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    public record SeatHold(String token, ShowtimeKey showtime, List<String> seats, String holder, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+
+    public Optional<SeatHold> claim(ShowtimeKey showtime, Collection<String> seats, String holder) {
+        List<String> labels = normalize(seats);
+        if (labels.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Instant now = clock.instant();
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), showtime, labels, holder, now.plus(ttl));
+        ConcurrentMap<String, SeatHold> showHolds = holdsByShow.computeIfAbsent(showtime, k -> new ConcurrentHashMap<>());
+
+        List<String> acquired = new ArrayList<>(labels.size());
+        for (String seat : labels) {
+            if (seatInventoryService.isBooked(showtime, seat)) {
+                rollback(showHolds, acquired, hold);
+                return Optional.empty();
+            }
+            SeatHold owner = showHolds.compute(seat, (s, current) ->
+                    current == null || current.isExpired(now) ? hold : current);
+            if (owner != hold) {
+                rollback(showHolds, acquired, hold);
+                return Optional.empty();
+            }
+            acquired.add(seat);
+        }
+
+        // A seat can be sold without a live hold (e.g. verification after expiry),
+        // so check the inventory again now that every seat is ours
+        if (seatInventoryService.isCancelled(showtime)) {
+            rollback(showHolds, acquired, hold);
+            return Optional.empty();
+        }
+        for (String seat : labels) {
+            if (seatInventoryService.isBooked(showtime, seat)) {
+                rollback(showHolds, acquired, hold);
+                return Optional.empty();
+            }
+        }
+        return Optional.of(hold);
+    }
+
+    public void bindToOrder(SeatHold hold, String orderId) {
+        holdsByOrder.put(orderId, hold);
+    }
+
+    public Optional<SeatHold> findActive(String orderId) {
+        SeatHold hold = holdsByOrder.get(orderId);
+        if (hold == null || hold.isExpired(clock.instant())) {
+            return Optional.empty();
+        }
+        return Optional.of(hold);
+    }
+
+    /**
+     * Makes sure the order owns the given seats before its booking is written:
+     * either through the hold taken at order creation or, if that hold has
+     * expired, by claiming the seats again. The hold is taken off the order, so
+     * cancelling the order can no longer free the seats while the booking is
+     * being written; the caller must then either complete or release it.
+     */
+    public Optional<SeatHold> secureForOrder(String orderId, ShowtimeKey showtime, Collection<String> seats,
+                                             String holder) {
+        List<String> labels = normalize(seats);
+        SeatHold existing = holdsByOrder.remove(orderId);
+        if (existing != null
+                && existing.showtime().equals(showtime)
+                && existing.seats().containsAll(labels)) {
+            SeatHold renewed = renew(existing);
+            if (renewed != null) {
+                return Optional.of(renewed);
+            }
+        }
+
+        release(existing);
+        return claim(showtime, labels, holder);
+    }
+
+    // Called inside the booking transaction: the seats are sold once it commits, so the hold can go
+    public void completeAfterCommit(SeatHold hold) {
+        if (hold == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> release(hold));
+    }
+
+    public void releaseOrder(String orderId) {
+        SeatHold hold = holdsByOrder.remove(orderId);
+        if (hold != null) {
+            release(hold);
+        }
+    }
+
+    // Frees the hold's seats. Holds bound to an order are released through releaseOrder,
+    // which takes them off the order first
+    public void release(SeatHold hold) {
+        if (hold == null) {
+            return;
+        }
+        ConcurrentMap<String, SeatHold> showHolds = holdsByShow.get(hold.showtime());
+        if (showHolds != null) {
+            hold.seats().forEach(seat -> showHolds.remove(seat, hold));
+        }
+    }
+
+    // Drops every hold on a show that has been cancelled; their orders can no longer be booked
+    public void releaseShow(ShowtimeKey showtime) {
+        ConcurrentMap<String, SeatHold> showHolds = holdsByShow.get(showtime);
+        if (showHolds != null) {
+            showHolds.clear();
+        }
+        int released = 0;
+        for (Map.Entry<String, SeatHold> entry : holdsByOrder.entrySet()) {
+            if (entry.getValue().showtime().equals(showtime) && holdsByOrder.remove(entry.getKey(), entry.getValue())) {
+                released++;
+            }
+        }
+        if (released > 0) {
+            logger.info("Released {} seat holds on cancelled show {}", released, showtime);
+        }
+    }
+
+    public List<String> getHeldSeats(ShowtimeKey showtime) {
+        ConcurrentMap<String, SeatHold> showHolds = holdsByShow.get(showtime);
+        if (showHolds == null) {
+            return List.of();
+        }
+        Instant now = clock.instant();
+        List<String> held = new ArrayList<>();
+        showHolds.forEach((seat, hold) -> {
+            if (!hold.isExpired(now)) {
+                held.add(seat);
+            }
+        });
+        return held;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.seat-hold.sweep-interval-ms:30000}")
+    public void releaseExpiredHolds() {
+        Instant now = clock.instant();
+        int released = 0;
+        for (Map.Entry<String, SeatHold> entry : holdsByOrder.entrySet()) {
+            if (entry.getValue().isExpired(now) && holdsByOrder.remove(entry.getKey(), entry.getValue())) {
+                release(entry.getValue());
+                released++;
+            }
+        }
+        holdsByShow.forEach((showtime, showHolds) -> showHolds.values().removeIf(hold -> hold.isExpired(now)));
+        // Per-show maps are only dropped once the show is over; removing a live one
+        // could orphan a claim that is in the middle of taking seats from it
+        LocalDate today = LocalDate.now(clock);
+        holdsByShow.keySet().removeIf(showtime -> showtime.date().isBefore(today));
+        if (released > 0) {
+            logger.info("Released {} expired seat holds", released);
+        }
+    }
+
+    // Pushes the expiry out so the hold cannot lapse while its booking is being written.
+    // Returns null if any seat has meanwhile been taken over by another claim.
+    private SeatHold renew(SeatHold hold) {
+        ConcurrentMap<String, SeatHold> showHolds = holdsByShow.get(hold.showtime());
+        if (showHolds == null) {
+            return null;
+        }
+        SeatHold renewed = new SeatHold(hold.token(), hold.showtime(), hold.seats(), hold.holder(), clock.instant().plus(ttl));
+        List<String> swapped = new ArrayList<>(hold.seats().size());
+        for (String seat : hold.seats()) {
+            if (!showHolds.replace(seat, hold, renewed)) {
+                swapped.forEach(s -> showHolds.replace(s, renewed, hold));
+                return null;
+            }
+            swapped.add(seat);
+        }
+        return renewed;
+    }
+
+    private void rollback(ConcurrentMap<String, SeatHold> showHolds, List<String> acquired, SeatHold hold) {
+        acquired.forEach(seat -> showHolds.remove(seat, hold));
+    }
+
+    // Trimmed, de-duplicated and sorted so overlapping claims collide on the same first seat
+    private static List<String> normalize(Collection<String> seats) {
+        if (seats == null) {
+            return List.of();
+        }
+        return seats.stream()
+                .filter(seat -> seat != null && !seat.isBlank())
+                .map(String::trim)
+                .distinct()
+                .sorted()
+                .toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.ShowtimeKey;
+import com.movieticketbooking.movieflix.repository.BookedSeatRepository;
+import com.movieticketbooking.movieflix.repository.ShowtimeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory view of sold seats per show, backing the seat map endpoint.
+ *
+ * Each show is loaded from the database once, on first request, and afterwards
+ * kept current by the booking and cancellation paths, which apply their changes
+ * only after their transaction has committed. Whether a show has been
+ * cancelled is looked up once per show and kept alongside.
+ */
+@Service
+public class SeatInventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatInventoryService.class);
+
+    private final BookedSeatRepository bookedSeatRepository;
+    private final ShowtimeRepository showtimeRepository;
+    private final ConcurrentMap<ShowtimeKey, SeatBitmap> inventory = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ShowtimeKey, Boolean> cancelled = new ConcurrentHashMap<>();
+
+    public SeatInventoryService(BookedSeatRepository bookedSeatRepository, ShowtimeRepository showtimeRepository) {
+        this.bookedSeatRepository = bookedSeatRepository;
+        this.showtimeRepository = showtimeRepository;
+    }
+
+    public List<String> getBookedSeats(ShowtimeKey key) {
+        return load(key).toSeatList();
+    }
+
+    public boolean isBooked(ShowtimeKey key, String seat) {
+        return load(key).contains(seat);
+    }
+
+    public void markBookedAfterCommit(ShowtimeKey key, Collection<String> seats) {
+        TransactionCallbacks.afterCommit(() -> markBooked(key, seats));
+    }
+
+    public void releaseAfterCommit(ShowtimeKey key, Collection<String> seats) {
+        TransactionCallbacks.afterCommit(() -> release(key, seats));
+    }
+
+    public void markBooked(ShowtimeKey key, Collection<String> seats) {
+        // Shows that were never loaded will read the committed rows on first access.
+        // computeIfPresent waits for an in-flight load of the same key, so a commit
+        // racing with the initial query is never lost.
+        inventory.computeIfPresent(key, (k, bitmap) -> {
+            seats.forEach(bitmap::add);
+            return bitmap;
+        });
+    }
+
+    public void release(ShowtimeKey key, Collection<String> seats) {
+        inventory.computeIfPresent(key, (k, bitmap) -> {
+            seats.forEach(bitmap::remove);
+            return bitmap;
+        });
+    }
+
+    public boolean isCancelled(ShowtimeKey key) {
+        return cancelled.computeIfAbsent(key, k -> showtimeRepository.existsByMovieIdAndTheatreIdAndDateAndTimeAndCancelledTrue(
+                k.movieId(), k.theatreId(), k.date(), k.time()));
+    }
+
+    public void markCancelled(ShowtimeKey key) {
+        cancelled.put(key, true);
+    }
+
+    public void evict(ShowtimeKey key) {
+        inventory.remove(key);
+    }
+
+    private SeatBitmap load(ShowtimeKey key) {
+        return inventory.computeIfAbsent(key, k -> {
+            List<String> seats = bookedSeatRepository.findBookedSeatsByMovieTheaterShowtimeAndDate(
+                    k.movieId(), k.theatreId(), k.time(), k.date());
+            logger.debug("Loaded {} booked seats for {}", seats.size(), k);
+            return new SeatBitmap(seats);
+        });
+    }
+
+    // Past shows can no longer be booked or cancelled, so their bitmaps are dropped
+    @Scheduled(cron = "0 15 * * * *")
+    public void evictPastShows() {
+        LocalDate today = LocalDate.now();
+        inventory.keySet().removeIf(key -> key.date().isBefore(today));
+        cancelled.keySet().removeIf(key -> key.date().isBefore(today));
+    }
+}
@@ -0,0 +1,131 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.models.BookedSeat;
+import com.movieticketbooking.movieflix.models.Showtime;
+import com.movieticketbooking.movieflix.repository.ShowtimeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the per-category seat counters on {@link Showtime} in step with bookings.
+ *
+ * Counters are changed with a single conditional UPDATE, so two bookings racing
+ * for the last seats of a category cannot both succeed, and availability can be
+ * read from the showtime row instead of counting booked seats.
+ *
+ * Rows written before the counters were maintained can be repaired once by
+ * starting with booking.seat-counters.reconcile-on-startup=true. The recount
+ * goes one showtime at a time, each with its row locked, so it never
+ * overwrites a booking or cancellation that commits while it runs.
+ */
+@Service
+public class ShowtimeAvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShowtimeAvailabilityService.class);
+
+    private final ShowtimeRepository showtimeRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.seat-counters.reconcile-on-startup:false}")
+    private boolean reconcileOnStartup;
+
+    @Value("${booking.seat-counters.reconcile-batch-size:500}")
+    private int reconcileBatchSize = 500;
+
+    public ShowtimeAvailabilityService(ShowtimeRepository showtimeRepository, TransactionTemplate transactionTemplate) {
+        this.showtimeRepository = showtimeRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Returns false, without changing anything, if a category does not have enough seats left
+    @Transactional
+    public boolean reserve(Showtime showtime, Collection<BookedSeat.SeatCategory> seats) {
+        int[] counts = countByCategory(seats);
+        if (counts[0] + counts[1] + counts[2] == 0) {
+            return true;
+        }
+        return showtimeRepository.reserveSeats(showtime.getId(), counts[0], counts[1], counts[2]) == 1;
+    }
+
+    @Transactional
+    public void release(Showtime showtime, Collection<BookedSeat.SeatCategory> seats) {
+        int[] counts = countByCategory(seats);
+        if (counts[0] + counts[1] + counts[2] > 0) {
+            showtimeRepository.releaseSeats(showtime.getId(), counts[0], counts[1], counts[2]);
+        }
+    }
+
+    public boolean isSoldOut(Showtime showtime) {
+        return showtime.isCancelled()
+                || showtime.getSilverSeatsAvailable() == 0
+                && showtime.getGoldSeatsAvailable() == 0
+                && showtime.getPlatinumSeatsAvailable() == 0;
+    }
+
+    // Availability summary in the shape served by /showtimes; defaults apply to shows nobody has booked yet
+    public List<Map<String, Object>> getSeatCategories(Showtime showtime) {
+        if (showtime == null) {
+            return List.of(
+                    Map.of("type", "Silver", "seatsAvailable", Showtime.SILVER_CAPACITY, "price", 140.0),
+                    Map.of("type", "Gold", "seatsAvailable", Showtime.GOLD_CAPACITY, "price", 170.0),
+                    Map.of("type", "Platinum", "seatsAvailable", Showtime.PLATINUM_CAPACITY, "price", 210.0)
+            );
+        }
+        // A cancelled show keeps the counters of the seats it gave back, but none can be sold
+        boolean open = !showtime.isCancelled();
+        return List.of(
+                Map.of("type", "Silver", "seatsAvailable", open ? showtime.getSilverSeatsAvailable() : 0, "price", showtime.getSilverPrice()),
+                Map.of("type", "Gold", "seatsAvailable", open ? showtime.getGoldSeatsAvailable() : 0, "price", showtime.getGoldPrice()),
+                Map.of("type", "Platinum", "seatsAvailable", open ? showtime.getPlatinumSeatsAvailable() : 0, "price", showtime.getPlatinumPrice())
+        );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileCounters() {
+        if (!reconcileOnStartup) {
+            return;
+        }
+        long afterId = Long.MIN_VALUE;
+        int updated = 0;
+        List<Long> ids;
+        do {
+            ids = showtimeRepository.findIdsAfter(afterId, Limit.of(reconcileBatchSize));
+            for (Long id : ids) {
+                Integer count = transactionTemplate.execute(status -> {
+                    showtimeRepository.lockById(id);
+                    return showtimeRepository.reconcileSeatCounters(
+                            id, Showtime.SILVER_CAPACITY, Showtime.GOLD_CAPACITY, Showtime.PLATINUM_CAPACITY);
+                });
+                updated += count != null ? count : 0;
+            }
+            if (!ids.isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == reconcileBatchSize);
+        logger.info("Reconciled seat counters for {} showtimes", updated);
+    }
+
+    private static int[] countByCategory(Collection<BookedSeat.SeatCategory> seats) {
+        int[] counts = new int[3];
+        for (BookedSeat.SeatCategory category : seats) {
+            switch (category) {
+                case SILVER -> counts[0]++;
+                case GOLD -> counts[1]++;
+                case PLATINUM -> counts[2]++;
+            }
+        }
+        return counts;
+    }
+}
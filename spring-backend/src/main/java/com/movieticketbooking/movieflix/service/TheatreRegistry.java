@@ -0,0 +1,198 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.Place;
+import com.movieticketbooking.movieflix.models.Theatre;
+import com.movieticketbooking.movieflix.models.TheatreSearchArea;
+import com.movieticketbooking.movieflix.repository.TheatreRepository;
+import com.movieticketbooking.movieflix.repository.TheatreSearchAreaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Local registry of the cinemas the app has seen on Google Places.
+ *
+ * Theatres are stored in the theatres table and held in memory with a grid
+ * index of fixed-size lat/lon cells, so "nearest k within a radius" only
+ * looks at the cells the radius touches. The registry is filled from nearby
+ * searches (see {@link NearbyTheatreCache}), which also record the geohash
+ * cell they covered; only areas that have never been searched, or not within
+ * the coverage age, still go to Places. Booking and ticket pages look
+ * theatres up here by place id and only call Places for one it has never
+ * seen.
+ *
+ * Search results are kept only if their name looks like a cinema, the same
+ * rule the nearby endpoint always applied.
+ */
+@Service
+public class TheatreRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TheatreRegistry.class);
+
+    // About 5.5 km of latitude per grid cell
+    private static final double GRID_DEGREES = 0.05;
+    private static final double EARTH_RADIUS_KM = 6371;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    public record Nearby(Place place, double distanceKm) {}
+
+    private final TheatreRepository theatreRepository;
+    private final TheatreSearchAreaRepository searchAreaRepository;
+    private final PlacesClient placesClient;
+    private final ConcurrentMap<String, Place> theatres = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<String>> grid = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LocalDateTime> searchedAreas = new ConcurrentHashMap<>();
+
+    public TheatreRegistry(TheatreRepository theatreRepository,
+                           TheatreSearchAreaRepository searchAreaRepository,
+                           PlacesClient placesClient) {
+        this.theatreRepository = theatreRepository;
+        this.searchAreaRepository = searchAreaRepository;
+        this.placesClient = placesClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Theatre> stored = theatreRepository.findAll();
+        stored.forEach(this::index);
+        searchAreaRepository.findAll().forEach(area -> searchedAreas.put(area.getCell(), area.getSearchedAt()));
+        logger.info("Loaded {} theatres and {} searched areas into the registry", stored.size(), searchedAreas.size());
+    }
+
+    // Throws if the theatre is unknown locally and Places cannot be reached
+    public Place get(String placeId) {
+        Place place = theatres.get(placeId);
+        if (place != null) {
+            return place;
+        }
+        place = placesClient.getPlace(placeId, PlacesClient.DETAILS_FIELDS);
+        if (place == null || place.name() == null) {
+            return place;
+        }
+        // Looked up by id, so it is kept even if the name doesn't say cinema
+        Theatre theatre = fromPlace(placeId, place);
+        theatreRepository.save(theatre);
+        return index(theatre);
+    }
+
+    public boolean isSearchedSince(String cell, LocalDateTime since) {
+        LocalDateTime searchedAt = searchedAreas.get(cell);
+        return searchedAt != null && searchedAt.isAfter(since);
+    }
+
+    public void recordSearch(String cell, List<Place> places) {
+        List<Theatre> found = places.stream()
+                .filter(place -> place.id() != null && place.location() != null && looksLikeCinema(place.name()))
+                .map(place -> fromPlace(place.id(), place))
+                .toList();
+        theatreRepository.saveAll(found);
+        found.forEach(this::index);
+
+        LocalDateTime now = LocalDateTime.now();
+        searchAreaRepository.save(new TheatreSearchArea(cell, now));
+        searchedAreas.put(cell, now);
+    }
+
+    // Closest first, at most limit, none further than radiusKm
+    public List<Nearby> nearest(double lat, double lon, double radiusKm, int limit) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double lonSpan = latSpan / Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        int minRow = row(lat - latSpan), maxRow = row(lat + latSpan);
+        int minColumn = column(lon - lonSpan), maxColumn = column(lon + lonSpan);
+
+        List<Nearby> candidates = new ArrayList<>();
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                Set<String> ids = grid.get(key(row, column));
+                if (ids == null) {
+                    continue;
+                }
+                for (String id : ids) {
+                    Place place = theatres.get(id);
+                    if (place == null || place.location() == null) {
+                        continue;
+                    }
+                    double distance = distanceKm(lat, lon, place.location().latitude(), place.location().longitude());
+                    if (distance <= radiusKm) {
+                        candidates.add(new Nearby(place, distance));
+                    }
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(Nearby::distanceKm));
+        return candidates.size() > limit ? List.copyOf(candidates.subList(0, limit)) : candidates;
+    }
+
+    static boolean looksLikeCinema(String name) {
+        if (name == null) {
+            return false;
+        }
+        String lowerName = name.toLowerCase();
+        return lowerName.contains("cinema") || lowerName.contains("theatre") || lowerName.contains("theater");
+    }
+
+    private Place index(Theatre theatre) {
+        Place place = new Place(theatre.getId(), new Place.LocalizedText(theatre.getName()), theatre.getAddress(),
+                theatre.getRating(), theatre.getLatitude() == null || theatre.getLongitude() == null
+                ? null : new Place.LatLng(theatre.getLatitude(), theatre.getLongitude()));
+        Place previous = theatres.put(theatre.getId(), place);
+        if (previous != null && previous.location() != null) {
+            Set<String> ids = grid.get(key(previous.location()));
+            if (ids != null) {
+                ids.remove(theatre.getId());
+            }
+        }
+        if (place.location() != null) {
+            grid.computeIfAbsent(key(place.location()), k -> ConcurrentHashMap.newKeySet()).add(theatre.getId());
+        }
+        return place;
+    }
+
+    private static Theatre fromPlace(String placeId, Place place) {
+        Theatre theatre = new Theatre();
+        theatre.setId(placeId);
+        theatre.setName(place.name());
+        theatre.setAddress(place.formattedAddress());
+        theatre.setRating(place.rating());
+        if (place.location() != null) {
+            theatre.setLatitude(place.location().latitude());
+            theatre.setLongitude(place.location().longitude());
+        }
+        return theatre;
+    }
+
+    private static int row(double lat) {
+        return (int) Math.floor((lat + 90) / GRID_DEGREES);
+    }
+
+    private static int column(double lon) {
+        return (int) Math.floor((lon + 180) / GRID_DEGREES);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    private static long key(Place.LatLng location) {
+        return key(row(location.latitude()), column(location.longitude()));
+    }
+
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,125 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.Place;
+import com.movieticketbooking.movieflix.models.BookedSeat;
+import com.movieticketbooking.movieflix.models.Booking;
+import com.movieticketbooking.movieflix.models.OutboxMessage;
+import com.movieticketbooking.movieflix.models.Showtime;
+import com.movieticketbooking.movieflix.repository.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Renders the ticket PDF and emails it for a committed booking.
+ *
+ * Runs as the handler for TICKET_EMAIL outbox messages, so the payment request
+ * never waits on the TMDB and Places lookups, the poster download or SMTP, and
+ * a failed send is retried instead of being lost. The booking is loaded in a
+ * short read-only transaction; rendering and sending happen without a
+ * connection.
+ */
+@Service
+public class TicketFulfilmentService implements OutboxHandler {
+
+    public static final String TYPE = "TICKET_EMAIL";
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketFulfilmentService.class);
+
+    private final TicketService ticketService;
+    private final EmailService emailService;
+    private final TheatreRegistry theatreRegistry;
+    private final MovieCatalogService movieCatalogService;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer fulfilmentTimer;
+
+    public TicketFulfilmentService(TicketService ticketService,
+                                   EmailService emailService,
+                                   TheatreRegistry theatreRegistry,
+                                   MovieCatalogService movieCatalogService,
+                                   BookingRepository bookingRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.ticketService = ticketService;
+        this.emailService = emailService;
+        this.theatreRegistry = theatreRegistry;
+        this.movieCatalogService = movieCatalogService;
+        this.bookingRepository = bookingRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fulfilmentTimer = Timer.builder("booking.fulfilment")
+                .description("Time taken to render and email a ticket after the booking commits")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(OutboxMessage message) throws Exception {
+        Booking booking = readOnlyTransaction.execute(status ->
+                bookingRepository.findById(message.getAggregateId()).map(this::initialize).orElse(null));
+        if (booking == null || "CANCELLED".equals(booking.getPaymentStatus())) {
+            logger.info("Skipping ticket for booking {}: no longer active", message.getAggregateId());
+            return;
+        }
+        fulfilmentTimer.recordCallable(() -> {
+            fulfil(booking);
+            return null;
+        });
+    }
+
+    // Touches everything the ticket needs so it can be rendered after the session is gone
+    private Booking initialize(Booking booking) {
+        booking.getUser().getEmail();
+        booking.getShowtime().getTime();
+        booking.getSeats().size();
+        booking.getFoodOrders().forEach(order -> order.getFoodItem().getName());
+        return booking;
+    }
+
+    private void fulfil(Booking booking) throws Exception {
+        Showtime showtime = booking.getShowtime();
+        List<BookedSeat> seats = booking.getSeats();
+
+        Map<String, Object> movieDetails = movieCatalogService.getDetails(showtime.getMovieId());
+        if (movieDetails == null) {
+            // Retried by the outbox once TMDB is reachable again
+            throw new IllegalStateException("Movie " + showtime.getMovieId() + " is not available yet");
+        }
+        Place theaterDetails = theatreRegistry.get(showtime.getTheatreId());
+
+        byte[] ticketPdf = ticketService.generateTicketPdf(
+                booking, showtime, seats, booking.getFoodOrders(), movieDetails, theaterDetails);
+
+        String theaterName = theaterDetails != null && theaterDetails.name() != null
+                ? theaterDetails.name() : "Unknown Theater";
+
+        String emailContent = "<p>Thank you for your booking! Your ticket details:</p>"
+                + "<p><strong>Movie:</strong> " + movieDetails.get("title") + "</p>"
+                + "<p><strong>Theater:</strong> " + theaterName + "</p>"
+                + "<p><strong>Date:</strong> " + showtime.getDate() + "</p>"
+                + "<p><strong>Time:</strong> " + showtime.getTime() + "</p>"
+                + "<p><strong>Seats:</strong> " + seats.stream()
+                .map(BookedSeat::getSeatNumber)
+                .collect(Collectors.joining(", ")) + "</p>";
+
+        emailService.sendTicketEmail(
+                booking.getUser().getEmail(),
+                "Your MovieFlix Ticket #" + booking.getBookingReference(),
+                emailContent,
+                ticketPdf
+        );
+    }
+}
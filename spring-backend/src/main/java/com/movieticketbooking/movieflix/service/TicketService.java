@@ -2,6 +2,8 @@ package com.movieticketbooking.movieflix.service;
 
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
+import com.movieticketbooking.movieflix.dto.BookingViewDocument;
+import com.movieticketbooking.movieflix.dto.Place;
 import com.movieticketbooking.movieflix.models.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -25,7 +27,7 @@ public class TicketService {
     public byte[] generateTicketPdf(Booking booking, Showtime showtime,
                                     List<BookedSeat> seats, List<FoodOrder> foodOrders,
                                     Map<String, Object> movieDetails,
-                                    Map<String, Object> theaterDetails) throws DocumentException {
+                                    Place theaterDetails) throws DocumentException {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         Document document = new Document(PageSize.A4.rotate()); // Landscape orientation
 
@@ -41,10 +43,40 @@ public class TicketService {
         return outputStream.toByteArray();
     }
 
+    // Renders the ticket from a booking's read model, without touching the booking tables
+    public byte[] generateTicketPdf(BookingViewDocument view) throws DocumentException {
+        Booking booking = new Booking();
+        booking.setBookingReference(view.reference());
+
+        Showtime showtime = new Showtime();
+        showtime.setDate(view.showDate());
+        showtime.setTime(view.showTime());
+
+        List<BookedSeat> seats = view.seats().stream().map(viewSeat -> {
+            BookedSeat seat = new BookedSeat();
+            seat.setSeatNumber(viewSeat.number());
+            seat.setPrice(viewSeat.price());
+            return seat;
+        }).collect(Collectors.toList());
+
+        List<FoodOrder> foodOrders = view.foodItems().stream().map(food -> {
+            FoodItem item = new FoodItem();
+            item.setName(food.name());
+            item.setImageUrl(food.imageUrl());
+            FoodOrder order = new FoodOrder();
+            order.setFoodItem(item);
+            order.setQuantity(food.quantity());
+            order.setPriceAtOrder(food.price());
+            return order;
+        }).collect(Collectors.toList());
+
+        return generateTicketPdf(booking, showtime, seats, foodOrders, view.movie(), view.theatre());
+    }
+
     private void addTicketContent(Document document, Booking booking, Showtime showtime,
                                   List<BookedSeat> seats, List<FoodOrder> foodOrders,
                                   Map<String, Object> movieDetails,
-                                  Map<String, Object> theaterDetails) throws DocumentException {
+                                  Place theaterDetails) throws DocumentException {
         try {
             // Create a table for the main layout (2 columns)
             PdfPTable mainTable = new PdfPTable(2);
@@ -131,7 +163,7 @@ public class TicketService {
             String theaterName = theaterDetails != null ?
                     extractTheaterName(theaterDetails) : "Unknown Theater";
             String theaterAddress = theaterDetails != null ?
-                    getSafeString(theaterDetails.get("formattedAddress"), "Address not available") : "Address not available";
+                    getSafeString(theaterDetails.formattedAddress(), "Address not available") : "Address not available";
 
             addDetailRow(showtimeTable, "Theater:", theaterName);
             addDetailRow(showtimeTable, "Address:", theaterAddress);
@@ -260,22 +292,11 @@ public class TicketService {
         }
     }
 
-    private String extractTheaterName(Map<String, Object> theaterDetails) {
-        if (theaterDetails == null) {
+    private String extractTheaterName(Place theaterDetails) {
+        if (theaterDetails == null || theaterDetails.name() == null) {
             return "Unknown Theater";
         }
-
-        // Try different ways to get theater name
-        if (theaterDetails.get("displayName") != null) {
-            if (theaterDetails.get("displayName") instanceof Map) {
-                return ((Map<String, Object>) theaterDetails.get("displayName")).get("text").toString();
-            }
-            return theaterDetails.get("displayName").toString();
-        }
-        if (theaterDetails.get("name") != null) {
-            return theaterDetails.get("name").toString();
-        }
-        return "Unknown Theater";
+        return theaterDetails.name();
     }
 
     private String getLanguageName(String languageCode) {
@@ -0,0 +1,169 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movieticketbooking.movieflix.dto.TmdbCredits;
+import com.movieticketbooking.movieflix.dto.TmdbGenreList;
+import com.movieticketbooking.movieflix.dto.TmdbMovie;
+import com.movieticketbooking.movieflix.dto.TmdbSearchResults;
+import com.movieticketbooking.movieflix.dto.TmdbVideos;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cached access to the TMDB endpoints the app reads.
+ *
+ * Each endpoint has its own bounded cache. Concurrent misses for the same key
+ * share one upstream request. Once an entry is older than its refresh
+ * interval, the next read still gets the old value while a single background
+ * reload replaces it, so a slow TMDB only holds up requests for data that is
+ * not cached at all. Entries are dropped when they pass their expiry without a
+ * successful reload. Hit, miss and load-time metrics are published as the
+ * cache.* meters, tagged by cache name.
+ *
+ * Responses the app only reads from are bound straight to records holding the
+ * fields it uses, so the rest of the payload is skipped while parsing. Now
+ * playing and movie details stay maps because their endpoints pass the full
+ * TMDB payload through to the frontend.
+ *
+ * The *Async variants start the lookup and return straight away, so a caller
+ * can have several TMDB requests in flight at once.
+ *
+ * Returned values are shared with other requests and must not be modified;
+ * copy them first.
+ */
+@Service
+public class TmdbClient {
+
+    private static final String BASE_URL = "https://api.themoviedb.org/3/";
+
+    private final RestTemplate restTemplate;
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AsyncLoadingCache<String, Map> nowPlaying;
+    private final AsyncLoadingCache<String, TmdbGenreList> genres;
+    private final AsyncLoadingCache<String, Map> movies;
+    private final AsyncLoadingCache<String, TmdbCredits> credits;
+    private final AsyncLoadingCache<String, TmdbVideos> videos;
+
+    @Value("${tmdb.api.key}")
+    private String tmdbApiKey;
+
+    public TmdbClient(RestTemplate restTemplate,
+                      MeterRegistry meterRegistry,
+                      @Value("${tmdb.cache.now-playing.refresh:PT10M}") Duration nowPlayingRefresh,
+                      @Value("${tmdb.cache.now-playing.expire:PT1H}") Duration nowPlayingExpire,
+                      @Value("${tmdb.cache.genres.refresh:PT24H}") Duration genresRefresh,
+                      @Value("${tmdb.cache.genres.expire:P7D}") Duration genresExpire,
+                      @Value("${tmdb.cache.movies.refresh:PT6H}") Duration moviesRefresh,
+                      @Value("${tmdb.cache.movies.expire:PT24H}") Duration moviesExpire,
+                      @Value("${tmdb.cache.movies.max-size:5000}") long moviesMaxSize) {
+        this.restTemplate = restTemplate;
+        this.nowPlaying = cache(meterRegistry, "tmdb.now_playing", Map.class, nowPlayingRefresh, nowPlayingExpire, 200);
+        this.genres = cache(meterRegistry, "tmdb.genres", TmdbGenreList.class, genresRefresh, genresExpire, 20);
+        this.movies = cache(meterRegistry, "tmdb.movies", Map.class, moviesRefresh, moviesExpire, moviesMaxSize);
+        this.credits = cache(meterRegistry, "tmdb.credits", TmdbCredits.class, moviesRefresh, moviesExpire, moviesMaxSize);
+        this.videos = cache(meterRegistry, "tmdb.videos", TmdbVideos.class, moviesRefresh, moviesExpire, moviesMaxSize);
+    }
+
+    private <T> AsyncLoadingCache<String, T> cache(MeterRegistry meterRegistry, String name, Class<T> type,
+                                                   Duration refresh, Duration expire, long maxSize) {
+        AsyncLoadingCache<String, T> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refresh)
+                .expireAfterWrite(expire)
+                .executor(loader)
+                .recordStats()
+                .buildAsync(key -> fetch(key, type));
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    // Keys are the TMDB path and query without the API key
+    private <T> T fetch(String pathAndQuery, Class<T> type) {
+        String separator = pathAndQuery.contains("?") ? "&" : "?";
+        T response = restTemplate.getForObject(BASE_URL + pathAndQuery + separator + "api_key=" + tmdbApiKey, type);
+        if (response == null) {
+            throw new IllegalStateException("Empty TMDB response for " + pathAndQuery);
+        }
+        return response;
+    }
+
+    public Map<String, Object> getNowPlaying(String language, String region, int page) {
+        return join(nowPlayingAsync(language, region, page));
+    }
+
+    private CompletableFuture<Map<String, Object>> nowPlayingAsync(String language, String region, int page) {
+        return nowPlaying.get("movie/now_playing?language=" + language + "&region=" + region + "&page=" + page)
+                .thenApply(response -> (Map<String, Object>) response);
+    }
+
+    public TmdbGenreList getGenres(String language) {
+        return join(genres.get("genre/movie/list?language=" + language));
+    }
+
+    public CompletableFuture<Map<String, Object>> getMovieAsync(String movieId) {
+        return movies.get("movie/" + movieId + "?language=en-US").thenApply(response -> (Map<String, Object>) response);
+    }
+
+    // Uncached: the catalog keeps its own copy and only asks for new or stale titles
+    public CompletableFuture<TmdbMovie> fetchMovieAsync(Long movieId) {
+        return CompletableFuture.supplyAsync(() -> fetch("movie/" + movieId + "?language=en-US", TmdbMovie.class), loader);
+    }
+
+    public CompletableFuture<TmdbCredits> getCreditsAsync(String movieId) {
+        return credits.get("movie/" + movieId + "/credits");
+    }
+
+    public CompletableFuture<TmdbVideos> getVideosAsync(String movieId) {
+        return videos.get("movie/" + movieId + "/videos");
+    }
+
+    public CompletableFuture<Boolean> isNowPlayingAsync(String movieId) {
+        return nowPlayingAsync("en-US", "IN", 1).thenApply(response -> {
+            List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+            return results != null && results.stream().anyMatch(movie -> String.valueOf(movie.get("id")).equals(movieId));
+        });
+    }
+
+    // Not cached: queries are too varied, and callers keep what they find in the search index
+    public List<TmdbSearchResults.Result> searchMovies(String query) {
+        String url = UriComponentsBuilder.fromHttpUrl(BASE_URL + "search/movie")
+                .queryParam("query", query)
+                .queryParam("language", "en-US")
+                .queryParam("api_key", tmdbApiKey)
+                .encode()
+                .toUriString();
+        TmdbSearchResults response = restTemplate.getForObject(url, TmdbSearchResults.class);
+        return response != null && response.results() != null ? response.results() : List.of();
+    }
+
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Surface the RestTemplate exception the callers already handle
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+}
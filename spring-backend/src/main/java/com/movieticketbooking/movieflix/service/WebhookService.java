@@ -0,0 +1,358 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.models.Payment;
+import com.movieticketbooking.movieflix.models.PaymentOrder;
+import com.movieticketbooking.movieflix.models.WebhookEvent;
+import com.movieticketbooking.movieflix.repository.BookingRepository;
+import com.movieticketbooking.movieflix.repository.PaymentOrderRepository;
+import com.movieticketbooking.movieflix.repository.PaymentRepository;
+import com.movieticketbooking.movieflix.repository.RefundRepository;
+import com.movieticketbooking.movieflix.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.codec.digest.HmacUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Razorpay webhook ingestion and processing.
+ *
+ * Deliveries are checked against the webhook secret and stored in
+ * webhook_events as-is, so the endpoint can acknowledge in a single insert.
+ * A poller then drains the table in batches: each batch looks up the bookings,
+ * ledger entries and payments it needs with one query per table, books paid
+ * orders whose browser never came back to verify-payment, and records refunds.
+ * Draining runs on its own executor, so a backlog never holds up the other
+ * scheduled jobs.
+ *
+ * Whether a payment is fully refunded is decided from its cumulative refunded
+ * amount: the gateway's own total from the event where present, otherwise
+ * the running total kept on the payment.
+ */
+@Service
+public class WebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookService.class);
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final PaymentOrderRepository paymentOrderRepository;
+    private final BookingRepository bookingRepository;
+    private final PaymentRepository paymentRepository;
+    private final RefundRepository refundRepository;
+    private final PaymentService paymentService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    @Value("${razorpay.webhook.secret:}")
+    private String webhookSecret;
+
+    @Value("${webhook.batch-size:200}")
+    private int batchSize;
+
+    @Value("${webhook.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${webhook.lease-seconds:300}")
+    private long leaseSeconds;
+
+    public enum IngestResult {
+        ACCEPTED, DUPLICATE, INVALID_SIGNATURE
+    }
+
+    public WebhookService(WebhookEventRepository webhookEventRepository,
+                          PaymentOrderRepository paymentOrderRepository,
+                          BookingRepository bookingRepository,
+                          PaymentRepository paymentRepository,
+                          RefundRepository refundRepository,
+                          PaymentService paymentService,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentOrderRepository = paymentOrderRepository;
+        this.bookingRepository = bookingRepository;
+        this.paymentRepository = paymentRepository;
+        this.refundRepository = refundRepository;
+        this.paymentService = paymentService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Throws JSONException when the payload is not a JSON object
+    public IngestResult ingest(String payload, String signature, String eventId) {
+        if (webhookSecret.isEmpty() || signature == null || !MessageDigest.isEqual(
+                sign(payload).getBytes(StandardCharsets.UTF_8), signature.getBytes(StandardCharsets.UTF_8))) {
+            meterRegistry.counter("webhook.events.received", "outcome", "invalid_signature").increment();
+            return IngestResult.INVALID_SIGNATURE;
+        }
+
+        String eventType = new JSONObject(payload).optString("event", "unknown");
+        // Razorpay sends the event id as a header; fall back to the payload hash so replays still dedupe
+        String id = eventId != null && !eventId.isBlank() ? eventId : DigestUtils.sha256Hex(payload);
+        boolean inserted = webhookEventRepository.insertIfAbsent(id, eventType, payload, LocalDateTime.now()) == 1;
+
+        IngestResult result = inserted ? IngestResult.ACCEPTED : IngestResult.DUPLICATE;
+        meterRegistry.counter("webhook.events.received", "outcome", result.name().toLowerCase()).increment();
+        return result;
+    }
+
+    public String sign(String payload) {
+        return HmacUtils.hmacSha256Hex(webhookSecret, payload);
+    }
+
+    public boolean isConfigured() {
+        return !webhookSecret.isEmpty();
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.poll-interval-ms:1000}")
+    public void poll() {
+        if (!draining.get()) {
+            executor.execute(this::processPending);
+        }
+    }
+
+    private void processPending() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<WebhookEvent> batch;
+            do {
+                batch = claim(batchSize);
+                if (!batch.isEmpty()) {
+                    meterRegistry.timer("webhook.batch").record(processBatch(batch));
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            logger.error("Webhook processing stopped: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private List<WebhookEvent> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<WebhookEvent> due = webhookEventRepository.lockDue(now, limit);
+            for (WebhookEvent event : due) {
+                event.setStatus(WebhookEvent.Status.PROCESSING);
+                event.setAttempts(event.getAttempts() + 1);
+                event.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+    }
+
+    private Duration processBatch(List<WebhookEvent> batch) {
+        long start = System.nanoTime();
+        BatchOutcome outcome = new BatchOutcome();
+
+        List<ParsedEvent> captured = new ArrayList<>();
+        List<ParsedEvent> refunded = new ArrayList<>();
+        for (WebhookEvent event : batch) {
+            try {
+                JSONObject payload = new JSONObject(event.getPayload()).getJSONObject("payload");
+                switch (event.getEventType()) {
+                    case "payment.captured", "order.paid" ->
+                            captured.add(new ParsedEvent(event, payload.getJSONObject("payment").getJSONObject("entity"), null));
+                    case "refund.processed" -> refunded.add(new ParsedEvent(event,
+                            payload.getJSONObject("refund").getJSONObject("entity"), payload.optJSONObject("payment")));
+                    // Nothing to reconcile for other events (payment.failed, order created, ...)
+                    default -> outcome.done(event);
+                }
+            } catch (JSONException e) {
+                outcome.failPermanently(event, "Malformed payload: " + e.getMessage());
+            }
+        }
+
+        if (!captured.isEmpty()) {
+            reconcileCaptured(captured, outcome);
+        }
+        // The refund totals and the events they came from are written together, so a crash or an
+        // expired lease cannot leave refunds counted against events that will be processed again
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!refunded.isEmpty()) {
+                reconcileRefunds(refunded, outcome);
+            }
+            if (!outcome.processed.isEmpty()) {
+                webhookEventRepository.markProcessed(outcome.processed, LocalDateTime.now());
+            }
+            if (!outcome.failed.isEmpty()) {
+                webhookEventRepository.saveAll(outcome.failed);
+            }
+        });
+        outcome.count("processed", outcome.processed.size());
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private void reconcileCaptured(List<ParsedEvent> events, BatchOutcome outcome) {
+        Set<String> orderIds = events.stream()
+                .map(e -> e.entity().optString("order_id", ""))
+                .filter(id -> !id.isEmpty())
+                .collect(Collectors.toSet());
+        Set<String> booked = new HashSet<>(bookingRepository.findExistingReferences(orderIds));
+        Map<String, PaymentOrder> ledger = paymentOrderRepository.findAllById(orderIds).stream()
+                .collect(Collectors.toMap(PaymentOrder::getRazorpayOrderId, Function.identity()));
+
+        for (ParsedEvent parsed : events) {
+            String orderId = parsed.entity().optString("order_id", "");
+            if (booked.contains(orderId)) {
+                // The browser already verified it
+                outcome.done(parsed.event());
+                continue;
+            }
+            PaymentOrder paymentOrder = ledger.get(orderId);
+            if (paymentOrder == null) {
+                outcome.failPermanently(parsed.event(), "No ledger entry for order " + orderId);
+                continue;
+            }
+            long paidPaise = parsed.entity().optLong("amount", -1);
+            if (paidPaise != Math.round(paymentOrder.getAmount() * 100)) {
+                outcome.failPermanently(parsed.event(), "Captured amount " + paidPaise
+                        + " does not match order amount " + paymentOrder.getAmount());
+                continue;
+            }
+
+            ResponseEntity<?> response = paymentService.completeCapturedPayment(paymentOrder, parsed.entity().optString("id"));
+            if (response.getStatusCode().is2xxSuccessful()) {
+                logger.info("Booked order {} from webhook {}", orderId, parsed.event().getEventId());
+                booked.add(orderId);
+                outcome.done(parsed.event());
+            } else if (response.getBody() instanceof Map<?, ?> body && body.containsKey("refundStatus")) {
+                // Paid, but it cannot be booked; the payment has been queued for a refund
+                logger.warn("Order {} from webhook {} could not be booked: {}",
+                        orderId, parsed.event().getEventId(), response.getBody());
+                outcome.done(parsed.event());
+            } else {
+                outcome.retry(parsed.event(), String.valueOf(response.getBody()));
+            }
+        }
+    }
+
+    private void reconcileRefunds(List<ParsedEvent> events, BatchOutcome outcome) {
+        Set<String> paymentIds = events.stream()
+                .map(e -> e.entity().optString("payment_id", ""))
+                .collect(Collectors.toSet());
+        Map<String, Payment> payments = paymentRepository.findByTransactionIdIn(paymentIds).stream()
+                .collect(Collectors.toMap(Payment::getTransactionId, Function.identity(), (a, b) -> a));
+
+        // Refunds of this batch, and the highest total the gateway reported, per payment
+        Map<String, Long> refundedPaise = new HashMap<>();
+        Map<String, Long> gatewayTotalPaise = new HashMap<>();
+        for (ParsedEvent parsed : events) {
+            String paymentId = parsed.entity().optString("payment_id", "");
+            if (!payments.containsKey(paymentId)) {
+                outcome.failPermanently(parsed.event(), "No payment for refunded payment id " + paymentId);
+                continue;
+            }
+            refundedPaise.merge(paymentId, parsed.entity().optLong("amount", 0), Long::sum);
+            JSONObject gatewayPayment = parsed.payment() != null ? parsed.payment().optJSONObject("entity") : null;
+            if (gatewayPayment != null && gatewayPayment.has("amount_refunded")) {
+                gatewayTotalPaise.merge(paymentId, gatewayPayment.getLong("amount_refunded"), Math::max);
+            }
+            outcome.done(parsed.event());
+        }
+
+        List<Payment> changed = new ArrayList<>();
+        List<String> fullyRefunded = new ArrayList<>();
+        refundedPaise.forEach((paymentId, paise) -> {
+            Payment payment = payments.get(paymentId);
+            // The gateway's running total already includes these refunds; only add them up without it
+            Long gatewayTotal = gatewayTotalPaise.get(paymentId);
+            long total = gatewayTotal != null
+                    ? Math.max(payment.getAmountRefundedPaise(), gatewayTotal)
+                    : payment.getAmountRefundedPaise() + paise;
+            payment.setAmountRefundedPaise(total);
+            boolean full = total >= Math.round(payment.getAmount() * 100);
+            payment.setStatus(full ? Payment.PaymentStatus.REFUNDED : Payment.PaymentStatus.PARTIALLY_REFUNDED);
+            changed.add(payment);
+            if (full) {
+                fullyRefunded.add(paymentId);
+            }
+        });
+        if (!changed.isEmpty()) {
+            paymentRepository.saveAll(changed);
+        }
+        if (!fullyRefunded.isEmpty()) {
+            // Refunds the engine submitted as pending settle here
+            refundRepository.markProcessed(fullyRefunded, LocalDateTime.now());
+        }
+    }
+
+    // The payment is only set for refund events, whose payload carries it next to the refund
+    private record ParsedEvent(WebhookEvent event, JSONObject entity, JSONObject payment) {}
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Webhook processing did not finish before shutdown");
+        }
+    }
+
+    private final class BatchOutcome {
+        private final List<String> processed = new ArrayList<>();
+        private final List<WebhookEvent> failed = new ArrayList<>();
+
+        void done(WebhookEvent event) {
+            processed.add(event.getEventId());
+        }
+
+        void failPermanently(WebhookEvent event, String error) {
+            logger.warn("Webhook {} ({}) failed: {}", event.getEventId(), event.getEventType(), error);
+            event.setStatus(WebhookEvent.Status.FAILED);
+            event.setLastError(error);
+            failed.add(event);
+            count("failed", 1);
+        }
+
+        void retry(WebhookEvent event, String error) {
+            if (event.getAttempts() >= maxAttempts) {
+                failPermanently(event, error);
+                return;
+            }
+            Duration backoff = Duration.ofSeconds(10).multipliedBy(1L << Math.min(event.getAttempts() - 1, 16));
+            if (backoff.compareTo(MAX_BACKOFF) > 0) {
+                backoff = MAX_BACKOFF;
+            }
+            event.setStatus(WebhookEvent.Status.PENDING);
+            event.setNextAttemptAt(LocalDateTime.now().plus(backoff));
+            event.setLastError(error);
+            failed.add(event);
+            count("retry", 1);
+        }
+
+        void count(String result, int amount) {
+            meterRegistry.counter("webhook.events.processed", "outcome", result).increment(amount);
+        }
+    }
+}
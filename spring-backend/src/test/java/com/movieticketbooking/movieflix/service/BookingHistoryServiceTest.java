@@ -0,0 +1,152 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieticketbooking.movieflix.dto.BookingViewDocument;
+import com.movieticketbooking.movieflix.models.BookingView;
+import com.movieticketbooking.movieflix.repository.BookingRepository;
+import com.movieticketbooking.movieflix.repository.BookingViewRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BookingHistoryServiceTest {
+
+    private static final int HISTORY_SIZE = 10_000;
+
+    @Test
+    void everyPageOfALargeHistoryIsServedWithinItsQueryBudget() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        // Newest first, with ties on booking time broken by id
+        List<BookingView> history = new ArrayList<>();
+        LocalDateTime latest = LocalDateTime.of(2026, 1, 1, 12, 0);
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            long id = HISTORY_SIZE - i;
+            LocalDateTime bookingTime = latest.minusMinutes(i / 2);
+            BookingViewDocument document = new BookingViewDocument(id, "order_" + id, 7L, "CONFIRMED", "RAZORPAY",
+                    450.0, bookingTime, id % 25, "theatre-1", LocalDate.of(2025, 12, 1), (1 + i % 12) + ":30 PM",
+                    List.of(new BookingViewDocument.Seat("S1", "SILVER", 150.0)), List.of(),
+                    Map.of("title", "Movie " + id % 25, "genres", List.of(Map.of("name", "Drama"))), null);
+            BookingView view = new BookingView();
+            view.setBookingReference(document.reference());
+            view.setBookingId(id);
+            view.setUserId(7L);
+            view.setBookingTime(bookingTime);
+            view.setPaymentStatus("CONFIRMED");
+            view.setDocument(objectMapper.writeValueAsString(document));
+            history.add(view);
+        }
+        BookingViewRepository repository = mock(BookingViewRepository.class);
+        when(repository.findHistory(eq(7L), any(Limit.class))).thenAnswer(invocation ->
+                history.subList(0, Math.min(history.size(), invocation.<Limit>getArgument(1).max())));
+        when(repository.findHistoryBefore(eq(7L), any(LocalDateTime.class), any(Long.class), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    LocalDateTime time = invocation.getArgument(1);
+                    Long id = invocation.getArgument(2);
+                    return history.stream()
+                            .filter(row -> row.getBookingTime().isBefore(time)
+                                    || (row.getBookingTime().equals(time) && row.getBookingId() < id))
+                            .limit(invocation.<Limit>getArgument(3).max())
+                            .toList();
+                });
+        BookingRepository bookings = mock(BookingRepository.class);
+        MovieCatalogService movieCatalog = mock(MovieCatalogService.class);
+        TheatreRegistry theatres = mock(TheatreRegistry.class);
+        BookingViewService views = new BookingViewService(bookings, repository,
+                mock(FoodItemCache.class), movieCatalog, theatres,
+                mock(JdbcTemplate.class), objectMapper, mock(PlatformTransactionManager.class));
+        BookingHistoryService service = new BookingHistoryService(bookings, repository, views,
+                Clock.fixed(Instant.parse("2026-01-02T00:00:00Z"), ZoneId.of("UTC")));
+
+        // Following the cursor visits every booking once, newest first
+        Set<Object> seen = new HashSet<>();
+        long previousId = Long.MAX_VALUE;
+        int pages = 0;
+        String cursor = null;
+        do {
+            BookingHistoryService.Page page = service.getPage(7L, cursor, 200);
+            for (Map<String, Object> booking : page.bookings()) {
+                long id = ((Number) booking.get("id")).longValue();
+                assertTrue(id < previousId, "Booking " + id + " came after " + previousId);
+                assertTrue(seen.add(booking.get("id")));
+                previousId = id;
+            }
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(HISTORY_SIZE, seen.size());
+        assertEquals(HISTORY_SIZE / 200, pages);
+        // The budget: one history query per page, and nothing looked up per booking
+        verify(repository, times(1)).findHistory(eq(7L), any(Limit.class));
+        verify(repository, times(pages - 1)).findHistoryBefore(eq(7L), any(LocalDateTime.class), any(Long.class), any(Limit.class));
+        verify(bookings, never()).findById(any());
+        verifyNoInteractions(movieCatalog, theatres);
+        assertThrows(IllegalArgumentException.class, () -> service.getPage(7L, "not-a-cursor", 10));
+    }
+
+    @Test
+    void bookingsWithoutAViewAreStillListed() {
+        BookingViewDocument older = document(2L, LocalDateTime.of(2026, 1, 1, 10, 0));
+        BookingViewDocument unprojected = document(3L, LocalDateTime.of(2026, 1, 1, 11, 0));
+        BookingViewDocument oldest = document(1L, LocalDateTime.of(2026, 1, 1, 9, 0));
+        BookingView olderRow = row(older);
+        BookingView oldestRow = row(oldest);
+
+        BookingRepository bookings = mock(BookingRepository.class);
+        when(bookings.findIdsWithoutViewByUser(eq(7L), any(Limit.class))).thenReturn(List.of(3L));
+        BookingViewRepository repository = mock(BookingViewRepository.class);
+        BookingViewService views = mock(BookingViewService.class);
+        // The view of booking 3 has not been written, e.g. because its movie cannot be looked up yet
+        when(views.draft(3L)).thenReturn(Optional.of(unprojected));
+        when(repository.findHistory(eq(7L), any(Limit.class))).thenReturn(List.of(olderRow, oldestRow));
+        when(views.read(olderRow)).thenReturn(older);
+        when(views.read(oldestRow)).thenReturn(oldest);
+        BookingHistoryService service = new BookingHistoryService(bookings, repository, views,
+                Clock.fixed(Instant.parse("2026-01-02T00:00:00Z"), ZoneId.of("UTC")));
+
+        BookingHistoryService.Page page = service.getPage(7L, null, 2);
+
+        // Merged in keyset order and cut at the page size; the next page starts after the last one listed
+        assertEquals(List.of(3L, 2L), page.bookings().stream().map(booking -> booking.get("id")).toList());
+        assertEquals(older.bookingTime() + "_2", page.nextCursor());
+        // Listed without waiting on a projection, which is left to the background rebuild
+        verify(views, never()).project(any());
+        verify(views).rebuild(true);
+    }
+
+    private static BookingView row(BookingViewDocument document) {
+        BookingView row = new BookingView();
+        row.setBookingId(document.bookingId());
+        row.setBookingTime(document.bookingTime());
+        return row;
+    }
+
+    private static BookingViewDocument document(long id, LocalDateTime bookingTime) {
+        return new BookingViewDocument(id, "order_" + id, 7L, "CONFIRMED", "RAZORPAY", 450.0, bookingTime,
+                id, "theatre-1", LocalDate.of(2026, 1, 5), "7:30 PM",
+                List.of(new BookingViewDocument.Seat("S1", "SILVER", 150.0)), List.of(), Map.of(), null);
+    }
+}
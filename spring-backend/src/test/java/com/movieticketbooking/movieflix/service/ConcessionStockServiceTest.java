@@ -0,0 +1,73 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.models.ConcessionStock;
+import com.movieticketbooking.movieflix.models.FoodItem;
+import com.movieticketbooking.movieflix.repository.ConcessionStockRepository;
+import com.movieticketbooking.movieflix.repository.FoodOrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConcessionStockServiceTest {
+
+    private static final ConcessionStockService.Slot SLOT =
+            new ConcessionStockService.Slot("theatre-1", LocalDate.of(2026, 1, 10), "18:30");
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        ConcessionStock stock = new ConcessionStock();
+        stock.setId(7L);
+        stock.setFoodItemId(1L);
+        stock.setCapacity(50);
+        stock.setSold(0);
+        ConcessionStockRepository stockRepository = mock(ConcessionStockRepository.class);
+        when(stockRepository.findByTheatreIdAndShowDateAndShowTime("theatre-1", SLOT.date(), "18:30"))
+                .thenReturn(List.of(stock));
+        FoodItem popcorn = new FoodItem();
+        popcorn.setId(1L);
+        popcorn.setName("Popcorn");
+        FoodItemCache foodItemCache = mock(FoodItemCache.class);
+        when(foodItemCache.findByNames(any())).thenReturn(Map.of("Popcorn", popcorn));
+        FoodOrderRepository foodOrderRepository = mock(FoodOrderRepository.class);
+        ConcessionStockService service = new ConcessionStockService(stockRepository, foodOrderRepository, foodItemCache,
+                mock(JdbcTemplate.class), Duration.ofMinutes(10), Clock.systemUTC());
+
+        List<Future<Optional<ConcessionStockService.Reservation>>> attempts = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                attempts.add(executor.submit(() -> service.reserve(SLOT, Map.of("Popcorn", 1), "user@example.com")));
+            }
+        }
+        List<ConcessionStockService.Reservation> granted = new ArrayList<>();
+        for (Future<Optional<ConcessionStockService.Reservation>> attempt : attempts) {
+            attempt.get().ifPresent(granted::add);
+        }
+
+        assertEquals(50, granted.size());
+        assertEquals(Map.of(1L, 0), service.getAvailable(SLOT));
+        service.release(granted.get(0));
+        assertEquals(Map.of(1L, 1), service.getAvailable(SLOT));
+        // A cancelled booking's snacks can be sold again
+        service.commitAfterCommit(granted.get(1));
+        when(foodOrderRepository.sumQuantityByFoodItem(List.of(7L))).thenReturn(List.<Object[]>of(new Object[]{1L, 1L}));
+        service.returnForBookingsAfterCommit(SLOT, List.of(7L));
+        assertEquals(Map.of(1L, 2), service.getAvailable(SLOT));
+        // Items without a stock row are not limited
+        assertTrue(service.reserve(SLOT, Map.of("Nachos", 3), "user@example.com").isPresent());
+    }
+}
@@ -0,0 +1,45 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.MenuItem;
+import com.movieticketbooking.movieflix.repository.FoodItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FoodCatalogServiceTest {
+
+    private static List<Object> names(List<Map<String, Object>> items) {
+        return items.stream().map(item -> item.get("name")).toList();
+    }
+
+    @Test
+    void searchMatchesSubstringsRankedByHowTheNameStarts() {
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        when(restTemplate.getForObject(anyString(), eq(MenuItem[].class))).thenReturn(new MenuItem[0]);
+        when(restTemplate.getForObject(eq("https://free-food-menus-api-two.vercel.app/burgers"), eq(MenuItem[].class)))
+                .thenReturn(new MenuItem[]{
+                        new MenuItem("b1", "Double Cheeseburger", "Two patties", "b1.jpg", null),
+                        new MenuItem("b2", "Burger Deluxe", null, null, null),
+                        new MenuItem("b3", "Veggie Burger", "Grilled", "b3.jpg", null)
+                });
+        FoodCatalogService catalog = new FoodCatalogService(restTemplate, mock(FoodItemRepository.class),
+                mock(FoodItemCache.class));
+
+        catalog.refresh();
+
+        assertEquals(List.of("Burger Deluxe", "Veggie Burger", "Double Cheeseburger"), names(catalog.search("BURGER")));
+        assertEquals(List.of("Double Cheeseburger"), names(catalog.search("eseb")));
+        assertEquals(3, catalog.getItems("burgers").size());
+        // Nothing in the menu: the fallback snacks are searched instead
+        assertEquals(List.of("Nachos"), names(catalog.search("nacho")));
+        assertEquals(List.of("Popcorn Combo", "Nachos", "Soft Drink"), names(catalog.getItems("pizzas")));
+    }
+}
@@ -0,0 +1,48 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.models.FoodItem;
+import com.movieticketbooking.movieflix.repository.FoodItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FoodItemCacheTest {
+
+    private static FoodItem item(Long id, String name) {
+        FoodItem item = new FoodItem(name, "", 150.0);
+        item.setId(id);
+        return item;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resolveUpsertsOnlyUnseenItemsInOneStatement() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(item(1L, "Popcorn"), item(2L, "Nachos")));
+        FoodItemRepository repository = mock(FoodItemRepository.class);
+        FoodItemCache cache = new FoodItemCache(repository, jdbcTemplate, new SimpleMeterRegistry(), 100);
+
+        Map<String, FoodItem> first = cache.resolve(List.of(item(null, "Popcorn"), item(null, "Nachos")));
+        Map<String, FoodItem> second = cache.resolve(List.of(item(null, "Nachos")));
+
+        assertEquals(2L, first.get("Nachos").getId());
+        assertSame(first.get("Nachos"), second.get("Nachos"));
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), any(Object[].class));
+        // Seen by name, so known by id too
+        assertEquals("Popcorn", cache.findByIds(List.of(1L)).get(1L).getName());
+        verify(repository, times(0)).findAllById(any());
+    }
+}
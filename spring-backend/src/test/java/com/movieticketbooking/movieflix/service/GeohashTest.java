@@ -0,0 +1,24 @@
+package com.movieticketbooking.movieflix.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeohashTest {
+
+    @Test
+    void encodesKnownPoints() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("ezs42", Geohash.encode(42.605, -5.603, 5));
+    }
+
+    @Test
+    void boundsContainThePointAndShareItsCell() {
+        String cell = Geohash.encode(19.0760, 72.8777, 6);
+        double[] bounds = Geohash.bounds(cell);
+
+        assertTrue(bounds[0] <= 19.0760 && 19.0760 <= bounds[2]);
+        assertTrue(bounds[1] <= 72.8777 && 72.8777 <= bounds[3]);
+        assertEquals(cell, Geohash.encode((bounds[0] + bounds[2]) / 2, (bounds[1] + bounds[3]) / 2, 6));
+    }
+}
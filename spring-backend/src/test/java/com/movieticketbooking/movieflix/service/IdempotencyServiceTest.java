@@ -0,0 +1,69 @@
+package com.movieticketbooking.movieflix.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        IdempotencyService idempotency = new IdempotencyService(15, 1000, 5000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<ResponseEntity<?>> booking = () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.ok("booked");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<ResponseEntity<?>>> responses = new ArrayList<>();
+        // The first call is running and holds the key before any duplicate arrives
+        responses.add(executor.submit(() -> idempotency.execute("order_1", booking)));
+        started.await();
+        for (int i = 0; i < 7; i++) {
+            responses.add(executor.submit(() -> idempotency.execute("order_1", booking)));
+        }
+        // Nobody can have an answer while the first call is still blocked
+        assertTrue(responses.stream().noneMatch(Future::isDone));
+        release.countDown();
+        for (Future<ResponseEntity<?>> response : responses) {
+            assertEquals("booked", response.get().getBody());
+        }
+        executor.shutdown();
+
+        assertEquals(1, executions.get());
+        // Later retries are answered from memory
+        assertEquals("booked", idempotency.execute("order_1", () -> ResponseEntity.ok("again")).getBody());
+    }
+
+    @Test
+    void failedAttemptsAreNotRemembered() {
+        IdempotencyService idempotency = new IdempotencyService(15, 1000, 5000);
+
+        ResponseEntity<?> failed = idempotency.execute("order_2",
+                () -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("gateway down"));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, failed.getStatusCode());
+
+        ResponseEntity<?> retried = idempotency.execute("order_2", () -> ResponseEntity.ok("booked"));
+        assertEquals("booked", retried.getBody());
+    }
+}
@@ -0,0 +1,45 @@
+package com.movieticketbooking.movieflix.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieSearchIndexTest {
+
+    private static MovieSearchIndex.Entry movie(long id, String title, double rating) {
+        return new MovieSearchIndex.Entry(id, title, null, null, rating);
+    }
+
+    private static List<Long> ids(List<MovieSearchIndex.Entry> entries) {
+        return entries.stream().map(MovieSearchIndex.Entry::id).toList();
+    }
+
+    @Test
+    void matchesWordPrefixesAndRanksTitlePrefixFirst() {
+        MovieSearchIndex index = new MovieSearchIndex();
+        index.put(movie(1, "The Dark Knight", 9.0));
+        index.put(movie(2, "Dark Waters", 7.0));
+        index.put(movie(3, "Amélie", 8.0));
+
+        assertEquals(List.of(2L, 1L), ids(index.search("dar", 10)));
+        assertEquals(List.of(1L), ids(index.search("dark kni", 10)));
+        assertEquals(List.of(3L), ids(index.search("AMELIE", 10)));
+        assertTrue(index.search("batman", 10).isEmpty());
+    }
+
+    @Test
+    void replacingAnEntryDropsItsOldWords() {
+        MovieSearchIndex index = new MovieSearchIndex();
+        index.put(movie(1, "Untitled Project", 0));
+        index.put(movie(1, "Dune: Part Two", 8.5));
+
+        assertTrue(index.search("untitled", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("dune two", 10)));
+
+        index.remove(1L);
+        assertTrue(index.search("dune", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,206 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.ShowtimeKey;
+import com.movieticketbooking.movieflix.repository.BookedSeatRepository;
+import com.movieticketbooking.movieflix.repository.ShowtimeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SeatHoldServiceTest {
+
+    private static final ShowtimeKey SHOW = new ShowtimeKey(550L, "place-1", LocalDate.now().plusDays(1), "7:00 PM");
+
+    private SeatInventoryService inventory;
+
+    @BeforeEach
+    void setUp() {
+        BookedSeatRepository repository = mock(BookedSeatRepository.class);
+        when(repository.findBookedSeatsByMovieTheaterShowtimeAndDate(any(), any(), any(), any()))
+                .thenReturn(List.of("A1"));
+        inventory = new SeatInventoryService(repository, mock(ShowtimeRepository.class));
+    }
+
+    @Test
+    void claimIsAllOrNothing() {
+        SeatHoldService holds = new SeatHoldService(inventory, Duration.ofMinutes(10), Clock.systemUTC());
+
+        assertTrue(holds.claim(SHOW, List.of("B1", "B2"), "first@example.com").isPresent());
+        assertTrue(holds.claim(SHOW, List.of("B3", "B2"), "second@example.com").isEmpty());
+        // B3 must have been rolled back by the failed claim
+        assertTrue(holds.claim(SHOW, List.of("B3"), "third@example.com").isPresent());
+        // A1 is already sold
+        assertTrue(holds.claim(SHOW, List.of("A1"), "fourth@example.com").isEmpty());
+    }
+
+    @Test
+    void expiredHoldsCanBeReclaimed() {
+        MutableClock clock = new MutableClock(Instant.parse("2030-01-01T10:00:00Z"));
+        SeatHoldService holds = new SeatHoldService(inventory, Duration.ofMinutes(10), clock);
+
+        Optional<SeatHoldService.SeatHold> first = holds.claim(SHOW, List.of("C5"), "first@example.com");
+        assertTrue(first.isPresent());
+        holds.bindToOrder(first.get(), "order_1");
+        assertTrue(holds.claim(SHOW, List.of("C5"), "second@example.com").isEmpty());
+
+        clock.advance(Duration.ofMinutes(11));
+        assertTrue(holds.findActive("order_1").isEmpty());
+        assertTrue(holds.claim(SHOW, List.of("C5"), "second@example.com").isPresent());
+        // The original order can no longer secure the seat it let lapse
+        assertTrue(holds.secureForOrder("order_1", SHOW, List.of("C5"), "first@example.com").isEmpty());
+    }
+
+    @Test
+    void securedHoldOutlivesItsOrder() {
+        SeatHoldService holds = new SeatHoldService(inventory, Duration.ofMinutes(10), Clock.systemUTC());
+        Optional<SeatHoldService.SeatHold> hold = holds.claim(SHOW, List.of("E1", "E2"), "first@example.com");
+        assertTrue(hold.isPresent());
+        holds.bindToOrder(hold.get(), "order_1");
+
+        Optional<SeatHoldService.SeatHold> secured = holds.secureForOrder("order_1", SHOW, List.of("E1", "E2"), "first@example.com");
+        assertTrue(secured.isPresent());
+        // Cancelling the order while its booking is being written must not free the seats
+        holds.releaseOrder("order_1");
+        assertTrue(holds.claim(SHOW, List.of("E2"), "second@example.com").isEmpty());
+
+        holds.release(secured.get());
+        assertTrue(holds.claim(SHOW, List.of("E2"), "second@example.com").isPresent());
+    }
+
+    @Test
+    void cancelledShowDropsItsHoldsAndTakesNoNewOnes() {
+        SeatHoldService holds = new SeatHoldService(inventory, Duration.ofMinutes(10), Clock.systemUTC());
+        Optional<SeatHoldService.SeatHold> hold = holds.claim(SHOW, List.of("D4"), "first@example.com");
+        assertTrue(hold.isPresent());
+        holds.bindToOrder(hold.get(), "order_1");
+
+        inventory.markCancelled(SHOW);
+        holds.releaseShow(SHOW);
+
+        assertTrue(holds.getHeldSeats(SHOW).isEmpty());
+        assertTrue(holds.findActive("order_1").isEmpty());
+        assertTrue(holds.claim(SHOW, List.of("D5"), "second@example.com").isEmpty());
+        assertTrue(holds.secureForOrder("order_1", SHOW, List.of("D4"), "first@example.com").isEmpty());
+    }
+
+    @Test
+    void concurrentCheckoutsNeverDoubleSell() throws Exception {
+        SeatHoldService holds = new SeatHoldService(inventory, Duration.ofMinutes(10), Clock.systemUTC());
+        List<String> seats = new ArrayList<>();
+        for (char row = 'A'; row <= 'G'; row++) {
+            for (int column = 1; column <= 10; column++) {
+                seats.add(String.valueOf(row) + column);
+            }
+        }
+
+        int threads = 32;
+        int attemptsPerThread = 2_000;
+        ConcurrentMap<String, String> soldTo = new ConcurrentHashMap<>();
+        soldTo.put("A1", "preexisting");
+        AtomicInteger doubleSells = new AtomicInteger();
+        AtomicInteger successfulCheckouts = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String customer = "customer-" + t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    List<String> wanted = new ArrayList<>();
+                    int count = 1 + random.nextInt(4);
+                    for (int s = 0; s < count; s++) {
+                        wanted.add(seats.get(random.nextInt(seats.size())));
+                    }
+
+                    Optional<SeatHoldService.SeatHold> hold = holds.claim(SHOW, wanted, customer);
+                    if (hold.isEmpty()) {
+                        continue;
+                    }
+                    String orderId = customer + "-" + i;
+                    holds.bindToOrder(hold.get(), orderId);
+
+                    // Roughly half the customers abandon checkout, the rest pay
+                    if (random.nextBoolean()) {
+                        holds.releaseOrder(orderId);
+                        continue;
+                    }
+                    Optional<SeatHoldService.SeatHold> secured = holds.secureForOrder(orderId, SHOW, hold.get().seats(), customer);
+                    assertTrue(secured.isPresent());
+                    for (String seat : hold.get().seats()) {
+                        if (soldTo.putIfAbsent(seat, orderId) != null) {
+                            doubleSells.incrementAndGet();
+                        }
+                    }
+                    inventory.markBooked(SHOW, hold.get().seats());
+                    holds.release(secured.get());
+                    successfulCheckouts.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        // Surfaces any assertion that failed on a worker
+        for (Future<Void> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(0, doubleSells.get());
+        assertTrue(successfulCheckouts.get() > 0);
+        assertEquals(soldTo.size(), inventory.getBookedSeats(SHOW).size());
+        assertTrue(holds.getHeldSeats(SHOW).isEmpty());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
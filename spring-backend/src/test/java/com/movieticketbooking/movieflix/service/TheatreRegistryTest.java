@@ -0,0 +1,42 @@
+package com.movieticketbooking.movieflix.service;
+
+import com.movieticketbooking.movieflix.dto.Place;
+import com.movieticketbooking.movieflix.repository.TheatreRepository;
+import com.movieticketbooking.movieflix.repository.TheatreSearchAreaRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TheatreRegistryTest {
+
+    private static Place place(String id, String name, double lat, double lon) {
+        return new Place(id, new Place.LocalizedText(name), null, null, new Place.LatLng(lat, lon));
+    }
+
+    @Test
+    void nearestReturnsCinemasWithinRadiusClosestFirst() {
+        TheatreRegistry registry = new TheatreRegistry(mock(TheatreRepository.class),
+                mock(TheatreSearchAreaRepository.class), mock(PlacesClient.class));
+        registry.recordSearch("tdr1v", List.of(
+                place("far", "PVR Cinemas Whitefield", 12.9698, 77.7500),
+                place("near", "INOX Theatre Garuda Mall", 12.9702, 77.6097),
+                place("mid", "Cinepolis Theater", 12.9352, 77.6245),
+                place("mall", "Garuda Mall Food Court", 12.9703, 77.6098),
+                place("out", "Miraj Cinemas Mysore", 12.2958, 76.6394)));
+
+        List<String> ids = registry.nearest(12.9716, 77.5946, 25, 10).stream()
+                .map(nearby -> nearby.place().id())
+                .toList();
+
+        assertEquals(List.of("near", "mid", "far"), ids);
+        assertEquals(List.of("near", "mid"), registry.nearest(12.9716, 77.5946, 25, 2).stream()
+                .map(nearby -> nearby.place().id())
+                .toList());
+        assertTrue(registry.isSearchedSince("tdr1v", LocalDateTime.now().minusMinutes(1)));
+        assertFalse(registry.isSearchedSince("tdr1y", LocalDateTime.now().minusMinutes(1)));
+    }
+}